@@ -0,0 +1,58 @@
+package fr.mieuxvoter.mj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorded by CollectedTally, once per batch of ballots, and once per sample of single judgments.
+ * Divide the judgments by the collect time to get the ingest throughput: a sample lasts from its
+ * first judgment to its last, idle time included.  See JfrRecorder.
+ */
+@Name("fr.mieuxvoter.mj.Collect")
+@Label("Tally Collection")
+@Category(FlightRecording.CATEGORY)
+@Description("Judgments collected into a tally, in a batch or in a sample of single judgments")
+@StackTrace(false)
+final class JfrCollectEvent extends Event implements FlightRecording.Collect {
+
+    @Label("Proposals")
+    int amountOfProposals;
+
+    @Label("Judgments")
+    long amountOfJudgments;
+
+    @Label("Collect Time")
+    @Description("Time spent collecting the judgments, without the idle time between single judgments")
+    @Timespan(Timespan.NANOSECONDS)
+    long collectTime;
+
+    @Label("Batch")
+    @Description("Whether the judgments came in a batch, or one by one")
+    boolean batch;
+
+    /**
+     * @return a started event, or null when it is not recorded
+     */
+    static JfrCollectEvent start() {
+        JfrCollectEvent event = new JfrCollectEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(int amountOfProposals, long amountOfJudgments, long collectNanoseconds, boolean batch) {
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfJudgments = amountOfJudgments;
+        this.collectTime = collectNanoseconds;
+        this.batch = batch;
+        commit();
+    }
+}
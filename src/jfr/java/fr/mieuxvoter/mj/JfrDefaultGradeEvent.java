@@ -0,0 +1,50 @@
+package fr.mieuxvoter.mj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded by DefaultGradeTally.fillWithDefaultGrade().  See JfrRecorder.
+ */
+@Name("fr.mieuxvoter.mj.DefaultGrade")
+@Label("Default Grade Filling")
+@Category(FlightRecording.CATEGORY)
+@Description("Wrapping of the tallies into views adding the missing judgments to a default grade")
+@StackTrace(false)
+final class JfrDefaultGradeEvent extends Event implements FlightRecording.DefaultGrade {
+
+    @Label("Tally")
+    @Description("The kind of default grade")
+    String tally;
+
+    @Label("Proposals")
+    int amountOfProposals;
+
+    @Label("Judges")
+    @Description("Long.MAX_VALUE when it does not fit")
+    long amountOfJudges;
+
+    /**
+     * @return a started event, or null when it is not recorded
+     */
+    static JfrDefaultGradeEvent start() {
+        JfrDefaultGradeEvent event = new JfrDefaultGradeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(String tally, int amountOfProposals, long amountOfJudges) {
+        this.tally = tally;
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfJudges = amountOfJudges;
+        commit();
+    }
+}
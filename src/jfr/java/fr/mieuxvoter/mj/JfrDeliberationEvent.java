@@ -0,0 +1,54 @@
+package fr.mieuxvoter.mj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded by MajorityJudgmentDeliberator.deliberate().  See JfrRecorder.
+ */
+@Name("fr.mieuxvoter.mj.Deliberation")
+@Label("Deliberation")
+@Category(FlightRecording.CATEGORY)
+@Description("A successful deliberation, from the tally to the result")
+@StackTrace(false)
+final class JfrDeliberationEvent extends Event implements FlightRecording.Deliberation {
+
+    @Label("Proposals")
+    int amountOfProposals;
+
+    @Label("Grades")
+    int amountOfGrades;
+
+    @Label("Judges")
+    @Description("Long.MAX_VALUE when it does not fit, -1 when the tally was not normalized")
+    long amountOfJudges;
+
+    @Label("Path")
+    @Description("Arithmetic the walks of the median gauges ran on")
+    String path;
+
+    /**
+     * @return a started event, or null when it is not recorded
+     */
+    static JfrDeliberationEvent start() {
+        JfrDeliberationEvent event = new JfrDeliberationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(int amountOfProposals, int amountOfGrades, long amountOfJudges, String path) {
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfGrades = amountOfGrades;
+        this.amountOfJudges = amountOfJudges;
+        this.path = path;
+        commit();
+    }
+}
@@ -0,0 +1,49 @@
+package fr.mieuxvoter.mj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded by the construction of a NormalizedTally.  See JfrRecorder.
+ */
+@Name("fr.mieuxvoter.mj.Normalization")
+@Label("Tally Normalization")
+@Category(FlightRecording.CATEGORY)
+@Description("Scaling of the tallies to the least common multiple of their amounts of judgments")
+@StackTrace(false)
+final class JfrNormalizationEvent extends Event implements FlightRecording.Normalization {
+
+    @Label("Proposals")
+    int amountOfProposals;
+
+    @Label("LCM Bit Length")
+    int lcmBitLength;
+
+    @Label("Primitive")
+    @Description("Whether the LCM and the scaled tallies fit in longs")
+    boolean primitive;
+
+    /**
+     * @return a started event, or null when it is not recorded
+     */
+    static JfrNormalizationEvent start() {
+        JfrNormalizationEvent event = new JfrNormalizationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(int amountOfProposals, int lcmBitLength, boolean primitive) {
+        this.amountOfProposals = amountOfProposals;
+        this.lcmBitLength = lcmBitLength;
+        this.primitive = primitive;
+        commit();
+    }
+}
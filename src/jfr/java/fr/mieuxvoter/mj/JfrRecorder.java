@@ -0,0 +1,31 @@
+package fr.mieuxvoter.mj;
+
+/**
+ * Records our events with the Java Flight Recorder.
+ *
+ * <p>Only this source set (src/jfr/java) may use the jdk.jfr API, the rest of the library being
+ * built against the Java 8 API.  FlightRecording instantiates this recorder by reflection, when
+ * both jdk.jfr and this class are there.
+ */
+final class JfrRecorder implements FlightRecording.Recorder {
+
+    @Override
+    public FlightRecording.Deliberation startDeliberation() {
+        return JfrDeliberationEvent.start();
+    }
+
+    @Override
+    public FlightRecording.Normalization startNormalization() {
+        return JfrNormalizationEvent.start();
+    }
+
+    @Override
+    public FlightRecording.DefaultGrade startDefaultGrade() {
+        return JfrDefaultGradeEvent.start();
+    }
+
+    @Override
+    public FlightRecording.Collect startCollect() {
+        return JfrCollectEvent.start();
+    }
+}
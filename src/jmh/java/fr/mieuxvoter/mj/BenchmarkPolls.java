@@ -0,0 +1,40 @@
+package fr.mieuxvoter.mj;
+
+/**
+ * Random tallies for the benchmarks, reproducible from their seed.
+ */
+final class BenchmarkPolls {
+
+    static final long SEED = 42L;
+
+    private BenchmarkPolls() {
+    }
+
+    static LongTally generateLongTally(
+            PollGenerator.Distribution distribution,
+            int amountOfProposals,
+            int amountOfGrades,
+            long amountOfJudges
+    ) {
+        return new PollGenerator(distribution, SEED).generate(amountOfProposals, amountOfGrades, amountOfJudges);
+    }
+
+    /**
+     * @param maxMissing at most this amount of judges did not judge each proposal
+     */
+    static ProposalTallyInterface[] generateBigTallies(
+            int amountOfProposals,
+            int amountOfGrades,
+            long amountOfJudges,
+            long maxMissing
+    ) {
+        PollGenerator generator = new PollGenerator(PollGenerator.Distribution.UNIFORM, SEED);
+        generator.setMaxMissingJudgments(maxMissing);
+        long[][] tallies = generator.generateTallies(amountOfProposals, amountOfGrades, amountOfJudges);
+        ProposalTallyInterface[] proposalsTallies = new ProposalTallyInterface[amountOfProposals];
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            proposalsTallies[proposal] = new ProposalTally(new LongProposalTally(tallies[proposal]));
+        }
+        return proposalsTallies;
+    }
+}
@@ -0,0 +1,110 @@
+package fr.mieuxvoter.mj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot paths of a deliberation: the whole of it, and the walks and analyses it is made of.
+ *
+ * <p>Run with the GC profiler (-prof gc) to get the allocation rates, as the jmh Gradle task and
+ * the benchmarks Maven profile do.  Narrow the parameters with -p, for example
+ * {@code -p amountOfProposals=1000000 -p amountOfGrades=7 -p distribution=NEAR_TIE}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class DeliberationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Poll {
+
+        @Param({"10", "1000", "1000000"})
+        public int amountOfProposals;
+
+        @Param({"2", "7", "100"})
+        public int amountOfGrades;
+
+        @Param({"10", "1000000", "1000000000000"})
+        public long amountOfJudges;
+
+        @Param({"UNIFORM", "POLARIZED", "CONSENSUAL", "ZIPF", "NEAR_TIE"})
+        public PollGenerator.Distribution distribution;
+
+        LongTally tally;
+
+        BigInteger bigAmountOfJudges;
+
+        MedianGaugeWalker walker;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.tally = BenchmarkPolls.generateLongTally(
+                    distribution,
+                    amountOfProposals,
+                    amountOfGrades,
+                    amountOfJudges
+            );
+            this.bigAmountOfJudges = BigInteger.valueOf(amountOfJudges);
+            this.walker = new MedianGaugeWalker(this.tally.getProposalsTallies()[0], true);
+        }
+    }
+
+    /**
+     * Cycles through the proposals, so that single-proposal benchmarks do not walk the same one.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int proposal = 0;
+
+        ProposalTallyInterface next(Poll poll) {
+            ProposalTallyInterface proposalTally = poll.tally.getProposalsTallies()[this.proposal];
+            if (++this.proposal == poll.amountOfProposals) {
+                this.proposal = 0;
+            }
+            return proposalTally;
+        }
+    }
+
+    @Benchmark
+    public ResultInterface deliberate(Poll poll) throws InvalidTallyException {
+        return new MajorityJudgmentDeliberator().deliberate(poll.tally);
+    }
+
+    @Benchmark
+    public MedianGaugeWalker walk(Poll poll, Cursor cursor) {
+        return new MedianGaugeWalker(cursor.next(poll), true);
+    }
+
+    @Benchmark
+    public PackedScore computeScore(Poll poll) {
+        return poll.walker.computeScore(poll.bigAmountOfJudges, false);
+    }
+
+    @Benchmark
+    public BigInteger computeMerit(Poll poll) {
+        return poll.walker.computeMerit(poll.bigAmountOfJudges);
+    }
+
+    @Benchmark
+    public ProposalTallyAnalysis reanalyze(Poll poll, Cursor cursor) {
+        ProposalTallyAnalysis analysis = new ProposalTallyAnalysis();
+        analysis.reanalyze(cursor.next(poll), true);
+        return analysis;
+    }
+}
@@ -0,0 +1,106 @@
+package fr.mieuxvoter.mj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the tallies we deliberate: normalization, default grades, and collection.
+ *
+ * <p>Those tallies hold BigIntegers, hence smaller default amounts of proposals than the
+ * DeliberationBenchmark's.  See there for how to run these.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class TallyBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Poll {
+
+        @Param({"10", "1000", "100000"})
+        public int amountOfProposals;
+
+        @Param({"2", "7", "100"})
+        public int amountOfGrades;
+
+        @Param({"10", "1000000", "1000000000000"})
+        public long amountOfJudges;
+
+        /**
+         * Up to a tenth of the judges did not judge each proposal.
+         */
+        ProposalTallyInterface[] partialTallies;
+
+        /**
+         * Amounts of judgments vary a little, or the LCM would explode.
+         */
+        ProposalTallyInterface[] closeTallies;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.partialTallies = BenchmarkPolls.generateBigTallies(
+                    amountOfProposals,
+                    amountOfGrades,
+                    amountOfJudges,
+                    amountOfJudges / 10
+            );
+            this.closeTallies = BenchmarkPolls.generateBigTallies(
+                    amountOfProposals,
+                    amountOfGrades,
+                    amountOfJudges,
+                    4L
+            );
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Collector {
+
+        CollectedTally tally;
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(Poll poll) {
+            this.tally = new CollectedTally(poll.amountOfProposals, poll.amountOfGrades);
+            this.random = new SplittableRandom(42);
+        }
+    }
+
+    @Benchmark
+    public TallyInterface normalize(Poll poll) {
+        return new NormalizedTally(poll.closeTallies);
+    }
+
+    /**
+     * Default grades are views now, so we may build them over and over on the same tallies.
+     */
+    @Benchmark
+    public TallyInterface fillWithMedianDefault(Poll poll) {
+        return new MedianDefaultTally(poll.partialTallies, poll.amountOfJudges);
+    }
+
+    @Benchmark
+    public CollectedTally collect(Poll poll, Collector collector) {
+        collector.tally.collect(
+                collector.random.nextInt(poll.amountOfProposals),
+                collector.random.nextInt(poll.amountOfGrades)
+        );
+        return collector.tally;
+    }
+}
@@ -0,0 +1,195 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the exact absolute rank of a merit profile, that is its rank in the MJ poll holding ALL
+ * the possible merit profiles of some amounts of grades and judges, without enumerating them.
+ *
+ * <p>MJ ranks profiles by the lexicographic order of their majority values: the sequence of
+ * medians we get by removing the median judgment, again and again.  Sorting the judgments of a
+ * profile, the medians are taken from a window growing outward from the middle, one position at a
+ * time.  Profiles whose majority value first differs from ours at some position are counted all at
+ * once: the judgments outside the window are free, as long as they stay sorted, and there are
+ * multichoose(length, values) sorted sequences.  Summing over the values below ours at that
+ * position is a hockey-stick sum, a single binomial.
+ *
+ * <p>Counting a profile thus costs one step per judge, each a couple of binomials, memoized for
+ * the next profiles of the same poll.  This is exact for any amount of grades, unlike the fitted
+ * MeritToAbsoluteRankModel, but the binomials grow with the amount of judges.
+ */
+public final class AbsoluteRankCounter {
+
+    private final int amountOfGrades;
+
+    private final int amountOfJudges;
+
+    private final boolean favorContestation;
+
+    /**
+     * Binomial coefficients, keyed by n (high bits) and k (low bits).
+     */
+    private final ConcurrentHashMap<Long, BigInteger> binomials = new ConcurrentHashMap<>();
+
+    public AbsoluteRankCounter(int amountOfGrades, int amountOfJudges) {
+        this(amountOfGrades, amountOfJudges, true);
+    }
+
+    public AbsoluteRankCounter(int amountOfGrades, int amountOfJudges, boolean favorContestation) {
+        if (0 >= amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be > zero.");
+        }
+        if (0 > amountOfJudges) {
+            throw new IllegalArgumentException("Amount of judges must be ≥ zero.");
+        }
+        this.amountOfGrades = amountOfGrades;
+        this.amountOfJudges = amountOfJudges;
+        this.favorContestation = favorContestation;
+    }
+
+    /**
+     * @return the amount of possible merit profiles
+     */
+    public BigInteger countProfiles() {
+        return multichoose(this.amountOfJudges, this.amountOfGrades);
+    }
+
+    /**
+     * @return the amount of merit profiles ranked strictly below ("worse than") this one
+     * @throws IllegalArgumentException when the tally does not hold the amounts of grades and judges
+     */
+    public BigInteger countProfilesBelow(ProposalTallyInterface proposalTally) {
+        long[] prefix = computePrefix(proposalTally);
+        int n = this.amountOfJudges;
+        if (0 == n) {
+            return BigInteger.ZERO;
+        }
+
+        // I. The first median, with everything else free
+        int position = (this.favorContestation ? (n + 1) / 2 : n / 2 + 1); // 1-based, in sorted order
+        int median = gradeAt(prefix, position);
+        int leftCount = position - 1; // free judgments on the left of the window
+        int rightCount = n - position; // free judgments on the right of the window
+        BigInteger below = BigInteger.ZERO;
+        for (int grade = 0; grade < median; grade++) {
+            below = below.add(multichoose(leftCount, grade + 1).multiply(
+                    multichoose(rightCount, this.amountOfGrades - grade)
+            ));
+        }
+
+        // II. The next medians, at the edges of the growing window
+        int lowestGrade = median;
+        int highestGrade = median;
+        while (0 < leftCount + rightCount) {
+            int remaining = leftCount + rightCount;
+            int cursor = this.favorContestation ? (remaining + 1) / 2 : remaining / 2 + 1;
+            if (cursor <= leftCount) {
+                int grade = gradeAt(prefix, leftCount);
+                leftCount--;
+                // Sum of multichoose(leftCount, g + 1) for g below grade
+                BigInteger lefts = binomial(leftCount + grade, leftCount + 1);
+                below = below.add(lefts.multiply(multichoose(rightCount, this.amountOfGrades - highestGrade)));
+                lowestGrade = grade;
+            } else {
+                int grade = gradeAt(prefix, n - rightCount + 1);
+                rightCount--;
+                // Sum of multichoose(rightCount, G - g) for g within [highestGrade, grade)
+                BigInteger rights = binomial(rightCount + this.amountOfGrades - highestGrade, rightCount + 1)
+                        .subtract(binomial(rightCount + this.amountOfGrades - grade, rightCount + 1));
+                below = below.add(multichoose(leftCount, lowestGrade + 1).multiply(rights));
+                highestGrade = grade;
+            }
+        }
+
+        return below;
+    }
+
+    /**
+     * @return the absolute rank of this merit profile, 1 being the best
+     */
+    public BigInteger getAbsoluteRank(ProposalTallyInterface proposalTally) {
+        return countProfiles().subtract(countProfilesBelow(proposalTally));
+    }
+
+    /**
+     * @return the share of the other profiles ranked below this one, from 0.0 (worst) to 1.0 (best)
+     */
+    public double getAffineMerit(ProposalTallyInterface proposalTally) {
+        BigInteger others = countProfiles().subtract(BigInteger.ONE);
+        if (0 == others.signum()) {
+            return 0.0;
+        }
+        return new BigDecimal(countProfilesBelow(proposalTally)).divide(
+                new BigDecimal(others), 15, RoundingMode.HALF_EVEN
+        ).doubleValue();
+    }
+
+    private long[] computePrefix(ProposalTallyInterface proposalTally) {
+        BigInteger[] gradesTallies = proposalTally.getTally();
+        if (gradesTallies.length != this.amountOfGrades) {
+            throw new IllegalArgumentException("The tally holds another amount of grades.");
+        }
+        long[] prefix = new long[this.amountOfGrades + 1];
+        for (int grade = 0; grade < this.amountOfGrades; grade++) {
+            if (0 > gradesTallies[grade].signum()) {
+                throw new IllegalArgumentException("Negative tallies are not allowed.");
+            }
+            prefix[grade + 1] = Math.addExact(prefix[grade], gradesTallies[grade].longValueExact());
+        }
+        if (prefix[this.amountOfGrades] != this.amountOfJudges) {
+            throw new IllegalArgumentException("The tally holds another amount of judgments.");
+        }
+        return prefix;
+    }
+
+    /**
+     * @param position 1-based position of a judgment, in the sorted judgments
+     * @return its grade
+     */
+    private static int gradeAt(long[] prefix, int position) {
+        int low = 0;
+        int high = prefix.length - 2;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prefix[middle + 1] >= position) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the amount of sorted sequences of this length, drawn from this amount of values
+     */
+    private BigInteger multichoose(int length, int amountOfValues) {
+        if (0 == length) {
+            return BigInteger.ONE;
+        }
+        return binomial(length + amountOfValues - 1, length);
+    }
+
+    private BigInteger binomial(int n, int k) {
+        if (0 > k || k > n) {
+            return BigInteger.ZERO;
+        }
+        int kk = Math.min(k, n - k);
+        if (0 == kk) {
+            return BigInteger.ONE;
+        }
+        long key = ((long) n << Integer.SIZE) | kk;
+        BigInteger binomial = this.binomials.get(key);
+        if (null == binomial) {
+            binomial = BigInteger.ONE;
+            for (int i = 1; i <= kk; i++) {
+                binomial = binomial.multiply(BigInteger.valueOf(n - kk + i)).divide(BigInteger.valueOf(i));
+            }
+            this.binomials.put(key, binomial);
+        }
+        return binomial;
+    }
+}
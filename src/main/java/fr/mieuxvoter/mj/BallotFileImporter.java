@@ -0,0 +1,193 @@
+package fr.mieuxvoter.mj;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Imports a file of ballots into a tally, through memory-mapping.
+ *
+ * <p>The file is a plain sequence of fixed-width records, one per ballot, without any header.
+ * Each record holds one grade per proposal, in the order of the proposals.  Each grade is an
+ * unsigned big-endian integer of 1, 2 or 4 bytes.
+ *
+ * <p>The file is mapped in segments, and grades are decoded straight from the mapped memory into
+ * a primitive histogram, without allocating anything per record.  Given a ForkJoinPool, segments
+ * are counted in parallel into their own histograms, which are summed at the end.
+ */
+public class BallotFileImporter {
+
+    /**
+     * Upper bound of the size of a mapped segment, in bytes.  Big enough to amortize the cost of
+     * mapping, small enough to balance the work across cores.
+     */
+    static final int MAX_SEGMENT_SIZE = 1 << 26;
+
+    private final int amountOfProposals;
+
+    private final int amountOfGrades;
+
+    private final int bytesPerGrade;
+
+    int maxSegmentSize = MAX_SEGMENT_SIZE; // tests shrink it, to get many segments out of tiny files
+
+    public BallotFileImporter(int amountOfProposals, int amountOfGrades) {
+        this(amountOfProposals, amountOfGrades, 1);
+    }
+
+    /**
+     * @param bytesPerGrade width of each grade in the records: 1, 2 or 4 bytes
+     */
+    public BallotFileImporter(int amountOfProposals, int amountOfGrades, int bytesPerGrade) {
+        if (0 >= amountOfProposals) {
+            throw new IllegalArgumentException("Amount of proposals must be > zero.");
+        }
+        if (0 > amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be ≥ zero.");
+        }
+        if (1 != bytesPerGrade && 2 != bytesPerGrade && 4 != bytesPerGrade) {
+            throw new IllegalArgumentException("Grades must be 1, 2 or 4 bytes wide.");
+        }
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfGrades = amountOfGrades;
+        this.bytesPerGrade = bytesPerGrade;
+    }
+
+    public int getRecordSize() {
+        return this.amountOfProposals * this.bytesPerGrade;
+    }
+
+    public LongTally importFile(Path path) throws IOException {
+        return importFile(path, null);
+    }
+
+    /**
+     * @param pool on which to count the segments of the file, or null to stay on the calling thread
+     * @throws IllegalArgumentException when the file is not made of whole records, or holds an
+     *                                  out of bounds grade
+     */
+    public LongTally importFile(Path path, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int recordSize = getRecordSize();
+            if (0 != fileSize % recordSize) {
+                throw new IllegalArgumentException(
+                        "File size " + fileSize + " is not a multiple of the record size " + recordSize + "."
+                );
+            }
+
+            long segmentSize = Math.max(1, this.maxSegmentSize / recordSize) * (long) recordSize;
+            int amountOfSegments = Math.toIntExact((fileSize + segmentSize - 1) / segmentSize);
+
+            long[] histogram;
+            if (null == pool || amountOfSegments < 2) {
+                histogram = new long[this.amountOfProposals * this.amountOfGrades];
+                for (int segment = 0; segment < amountOfSegments; segment++) {
+                    countSegment(histogram, channel, segment * segmentSize, segmentSize, fileSize);
+                }
+            } else {
+                histogram = pool.submit(() -> IntStream.range(0, amountOfSegments).parallel().collect(
+                        () -> new long[this.amountOfProposals * this.amountOfGrades],
+                        (partial, segment) -> {
+                            try {
+                                countSegment(partial, channel, segment * segmentSize, segmentSize, fileSize);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        },
+                        (into, from) -> {
+                            for (int i = 0; i < into.length; i++) {
+                                into[i] += from[i];
+                            }
+                        }
+                )).join();
+            }
+
+            return toTally(histogram, fileSize / recordSize);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void countSegment(
+            long[] histogram,
+            FileChannel channel,
+            long position,
+            long segmentSize,
+            long fileSize
+    ) throws IOException {
+        int size = (int) Math.min(segmentSize, fileSize - position);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        long firstRecord = position / getRecordSize(); // only used in error messages
+
+        switch (this.bytesPerGrade) {
+            case 1:
+                countBytes(histogram, buffer, size, firstRecord);
+                break;
+            case 2:
+                countShorts(histogram, buffer, size, firstRecord);
+                break;
+            default:
+                countInts(histogram, buffer, size, firstRecord);
+        }
+    }
+
+    private void countBytes(long[] histogram, ByteBuffer buffer, int size, long record) {
+        int proposal = 0;
+        for (int i = 0; i < size; i++) {
+            countGrade(histogram, proposal, buffer.get(i) & 0xFF, record);
+            if (++proposal == this.amountOfProposals) {
+                proposal = 0;
+                record++;
+            }
+        }
+    }
+
+    private void countShorts(long[] histogram, ByteBuffer buffer, int size, long record) {
+        int proposal = 0;
+        for (int i = 0; i < size; i += 2) {
+            countGrade(histogram, proposal, buffer.getShort(i) & 0xFFFF, record);
+            if (++proposal == this.amountOfProposals) {
+                proposal = 0;
+                record++;
+            }
+        }
+    }
+
+    private void countInts(long[] histogram, ByteBuffer buffer, int size, long record) {
+        int proposal = 0;
+        for (int i = 0; i < size; i += 4) {
+            countGrade(histogram, proposal, buffer.getInt(i), record);
+            if (++proposal == this.amountOfProposals) {
+                proposal = 0;
+                record++;
+            }
+        }
+    }
+
+    /**
+     * @param record only used to locate the faulty record, should the grade be out of bounds
+     */
+    private void countGrade(long[] histogram, int proposal, int grade, long record) {
+        if (Integer.compareUnsigned(grade, this.amountOfGrades) >= 0) {
+            throw new IllegalArgumentException(
+                    "Grade index " + Integer.toUnsignedString(grade) + " is too high, in record #" + record + "."
+            );
+        }
+        histogram[proposal * this.amountOfGrades + grade]++;
+    }
+
+    private LongTally toTally(long[] histogram, long amountOfBallots) {
+        long[][] tallies = new long[this.amountOfProposals][this.amountOfGrades];
+        for (int proposal = 0; proposal < this.amountOfProposals; proposal++) {
+            System.arraycopy(histogram, proposal * this.amountOfGrades, tallies[proposal], 0, this.amountOfGrades);
+        }
+        return new LongTally(tallies, amountOfBallots);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.mieuxvoter.mj;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Shenanigans to count batches of ballots into flat primitive histograms, before merging them
+ * into a tally in one go.
+ *
+ * <p>Histograms hold one counter per (proposal, grade), at index proposal * amountOfGrades + grade.
+ * A batch is validated while it is counted, and nothing is merged if any judgment is invalid.
+ */
+final class BallotHistogram {
+
+    /**
+     * Below this amount of ballots, splitting the batch across cores costs more than it saves.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private BallotHistogram() {
+    }
+
+    /**
+     * @param ballots one array per ballot, holding the grade given to each proposal
+     * @param pool    to split large batches on, or null to stay on the calling thread
+     */
+    static long[] countBallots(int[][] ballots, int amountOfProposals, int amountOfGrades, ForkJoinPool pool) {
+        int histogramLength = Math.multiplyExact(amountOfProposals, amountOfGrades);
+        if (null == pool || ballots.length < PARALLEL_THRESHOLD) {
+            long[] histogram = new long[histogramLength];
+            for (int[] ballot : ballots) {
+                countBallot(histogram, ballot, amountOfProposals, amountOfGrades);
+            }
+            return histogram;
+        }
+
+        // Each subtask counts into its own histogram, and histograms are summed at the end
+        return pool.submit(() -> IntStream.range(0, ballots.length).parallel().collect(
+                () -> new long[histogramLength],
+                (histogram, i) -> countBallot(histogram, ballots[i], amountOfProposals, amountOfGrades),
+                BallotHistogram::add
+        )).join();
+    }
+
+    /**
+     * @param columns one array per proposal, holding the grade given by each ballot
+     * @param pool    to split large batches on, or null to stay on the calling thread
+     */
+    static long[] countColumns(int[][] columns, int amountOfProposals, int amountOfGrades, ForkJoinPool pool) {
+        if (columns.length != amountOfProposals) {
+            throw new IllegalArgumentException("Columnar batches need one column per proposal.");
+        }
+        int amountOfBallots = (0 < columns.length) ? columns[0].length : 0;
+        for (int[] column : columns) {
+            if (column.length != amountOfBallots) {
+                throw new IllegalArgumentException("Columns must all hold the same amount of ballots.");
+            }
+        }
+
+        // Proposals count into their own slice of the histogram, no need to merge anything
+        long[] histogram = new long[Math.multiplyExact(amountOfProposals, amountOfGrades)];
+        if (null == pool || amountOfBallots < PARALLEL_THRESHOLD) {
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                countColumn(histogram, columns[proposal], proposal, amountOfGrades);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, amountOfProposals).parallel().forEach(
+                    proposal -> countColumn(histogram, columns[proposal], proposal, amountOfGrades)
+            )).join();
+        }
+        return histogram;
+    }
+
+    private static void countBallot(long[] histogram, int[] ballot, int amountOfProposals, int amountOfGrades) {
+        if (ballot.length != amountOfProposals) {
+            throw new IllegalArgumentException("Ballots need exactly one grade per proposal.");
+        }
+        int offset = 0;
+        for (int grade : ballot) {
+            checkGrade(grade, amountOfGrades);
+            histogram[offset + grade]++;
+            offset += amountOfGrades;
+        }
+    }
+
+    private static void countColumn(long[] histogram, int[] column, int proposal, int amountOfGrades) {
+        int offset = proposal * amountOfGrades;
+        for (int grade : column) {
+            checkGrade(grade, amountOfGrades);
+            histogram[offset + grade]++;
+        }
+    }
+
+    private static void checkGrade(int grade, int amountOfGrades) {
+        // A single unsigned comparison catches negative grades as well
+        if (Integer.compareUnsigned(grade, amountOfGrades) >= 0) {
+            if (0 > grade) {
+                throw new IllegalArgumentException("Grade index must be ≥ zero.");
+            }
+            throw new IllegalArgumentException("Grade index is too high.");
+        }
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+}
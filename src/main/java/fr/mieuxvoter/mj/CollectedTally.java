@@ -2,6 +2,7 @@ package fr.mieuxvoter.mj;
 
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class CollectedTally implements TallyInterface {
 
@@ -10,6 +11,22 @@ public class CollectedTally implements TallyInterface {
 
     ProposalTally[] proposalsTallies;
 
+    /**
+     * Single judgments are recorded by the Java Flight Recorder in samples of this size.
+     */
+    static final int COLLECT_SAMPLE_SIZE = 1 << 16;
+
+    /**
+     * The sample of single judgments being recorded, if any, how many it holds so far, and how
+     * long collecting them took, idle time between them excluded.
+     * A sample ends once full, or with finishCollectSample().
+     */
+    private FlightRecording.Collect collectSample;
+
+    private int collectSampleSize = 0;
+
+    private long collectSampleNanoseconds = 0L;
+
     public CollectedTally(Integer amountOfProposals, Integer amountOfGrades) {
         setAmountOfProposals(amountOfProposals);
         setAmountOfGrades(amountOfGrades);
@@ -60,6 +77,13 @@ public class CollectedTally implements TallyInterface {
     }
 
     public void collect(Integer proposal, Integer grade) {
+        boolean isSampled = FlightRecording.isAvailable();
+        if (isSampled && 0 == collectSampleSize) {
+            collectSample = FlightRecording.startCollect();
+            collectSampleNanoseconds = 0L;
+        }
+        long start = (null != collectSample) ? System.nanoTime() : 0L;
+
         if (0 > proposal) {
             throw new IllegalArgumentException("Proposal index must be ≥ zero.");
         }
@@ -73,7 +97,90 @@ public class CollectedTally implements TallyInterface {
             throw new IllegalArgumentException("Grade index is too high.");
         }
 
-        BigInteger[] tally = proposalsTallies[proposal].getTally();
-        tally[grade] = tally[grade].add(BigInteger.ONE);
+        proposalsTallies[proposal].addJudgments(grade, BigInteger.ONE);
+        if (null != collectSample) {
+            collectSampleNanoseconds += System.nanoTime() - start;
+        }
+        if (isSampled && COLLECT_SAMPLE_SIZE == ++collectSampleSize) {
+            finishCollectSample();
+        }
+    }
+
+    /**
+     * Records the sample of single judgments being collected, even if it is not full.
+     * Call it once done collecting, so that the last judgments are recorded too.
+     */
+    public void finishCollectSample() {
+        if (null != collectSample && 0 != collectSampleSize) {
+            collectSample.finish(amountOfProposals, collectSampleSize, collectSampleNanoseconds, false);
+        }
+        collectSample = null;
+        collectSampleSize = 0;
+        collectSampleNanoseconds = 0L;
+    }
+
+    /**
+     * Collects a whole ballot, that is one grade per proposal.
+     */
+    public void collectBallot(int[] ballot) {
+        collectBallots(new int[][]{ballot});
+    }
+
+    /**
+     * Collects a batch of ballots, each holding one grade per proposal.
+     * Nothing is collected if any of the ballots is invalid.
+     */
+    public void collectBallots(int[][] ballots) {
+        collectBallots(ballots, null);
+    }
+
+    /**
+     * @param pool on which to split large batches, or null to stay on the calling thread
+     */
+    public void collectBallots(int[][] ballots, ForkJoinPool pool) {
+        FlightRecording.Collect event = FlightRecording.startCollect();
+        long start = (null != event) ? System.nanoTime() : 0L;
+        long amountOfJudgments = merge(BallotHistogram.countBallots(ballots, amountOfProposals, amountOfGrades, pool));
+        if (null != event) {
+            event.finish(amountOfProposals, amountOfJudgments, System.nanoTime() - start, true);
+        }
+    }
+
+    /**
+     * Collects a columnar batch of ballots: one array per proposal, holding the grade given by
+     * each ballot.  Nothing is collected if any of the judgments is invalid.
+     */
+    public void collectColumns(int[][] columns) {
+        collectColumns(columns, null);
+    }
+
+    /**
+     * @param pool on which to split large batches, or null to stay on the calling thread
+     */
+    public void collectColumns(int[][] columns, ForkJoinPool pool) {
+        FlightRecording.Collect event = FlightRecording.startCollect();
+        long start = (null != event) ? System.nanoTime() : 0L;
+        long amountOfJudgments = merge(BallotHistogram.countColumns(columns, amountOfProposals, amountOfGrades, pool));
+        if (null != event) {
+            event.finish(amountOfProposals, amountOfJudgments, System.nanoTime() - start, true);
+        }
+    }
+
+    /**
+     * @return the amount of judgments merged
+     */
+    private long merge(long[] histogram) {
+        long amountOfJudgments = 0L;
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            int offset = proposal * amountOfGrades;
+            for (int grade = 0; grade < amountOfGrades; grade++) {
+                long gradeJudgments = histogram[offset + grade];
+                if (0L != gradeJudgments) {
+                    proposalsTallies[proposal].addJudgments(grade, BigInteger.valueOf(gradeJudgments));
+                    amountOfJudgments += gradeJudgments;
+                }
+            }
+        }
+        return amountOfJudgments;
     }
 }
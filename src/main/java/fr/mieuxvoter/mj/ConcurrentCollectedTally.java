@@ -0,0 +1,208 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A CollectedTally that many threads may collect judgments into, at the same time.
+ *
+ * <p>Each (proposal, grade) pair gets its own LongAdder, whose cells spread the contention of
+ * concurrent increments.  Collecting threads also share one of a few striped locks, only to let
+ * snapshot() briefly pause collecting, so that a snapshot is the tally as it was at one instant.
+ * Collecting threads never wait for each other, only for snapshots.
+ *
+ * <p>The proposals tallies and the amount of judges returned by this tally are read from a fresh
+ * snapshot each time, and may therefore disagree.  MajorityJudgmentDeliberator, TallySerializer
+ * and TallyMerger take one snapshot() of the tally instead, see snapshotOf().
+ */
+public class ConcurrentCollectedTally implements TallyInterface {
+
+    private final int amountOfProposals;
+
+    private final int amountOfGrades;
+
+    /**
+     * One counter per (proposal, grade), at index proposal * amountOfGrades + grade.
+     */
+    private final LongAdder[] counters;
+
+    private final StampedLock[] stripes;
+
+    public ConcurrentCollectedTally(Integer amountOfProposals, Integer amountOfGrades) {
+        if (0 > amountOfProposals) {
+            throw new IllegalArgumentException("Amount of proposals must be ≥ zero.");
+        }
+        if (0 > amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be ≥ zero.");
+        }
+
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfGrades = amountOfGrades;
+
+        this.counters = new LongAdder[Math.multiplyExact(amountOfProposals, amountOfGrades)];
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] = new LongAdder();
+        }
+
+        // A power of two, so that we can pick a stripe with a mask
+        int amountOfStripes = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)
+        ) << 1;
+        this.stripes = new StampedLock[amountOfStripes];
+        for (int i = 0; i < amountOfStripes; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+    }
+
+    public void collect(Integer proposal, Integer grade) {
+        checkJudgment(proposal, grade);
+
+        StampedLock stripe = pickStripe();
+        long stamp = stripe.readLock();
+        try {
+            this.counters[proposal * this.amountOfGrades + grade].increment();
+        } finally {
+            stripe.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Collects a whole ballot, that is one grade per proposal.
+     * Snapshots hold either all the judgments of the ballot, or none of them.
+     */
+    public void collectBallot(int[] ballot) {
+        collectBallots(new int[][]{ballot});
+    }
+
+    /**
+     * Collects a batch of ballots, each holding one grade per proposal.
+     * Nothing is collected if any of the ballots is invalid, and snapshots hold either the whole
+     * batch, or none of it.
+     */
+    public void collectBallots(int[][] ballots) {
+        collectBallots(ballots, null);
+    }
+
+    /**
+     * @param pool on which to split large batches, or null to stay on the calling thread
+     */
+    public void collectBallots(int[][] ballots, ForkJoinPool pool) {
+        merge(BallotHistogram.countBallots(ballots, amountOfProposals, amountOfGrades, pool));
+    }
+
+    /**
+     * Collects a columnar batch of ballots: one array per proposal, holding the grade given by
+     * each ballot.  Same guarantees as collectBallots().
+     */
+    public void collectColumns(int[][] columns) {
+        collectColumns(columns, null);
+    }
+
+    /**
+     * @param pool on which to split large batches, or null to stay on the calling thread
+     */
+    public void collectColumns(int[][] columns, ForkJoinPool pool) {
+        merge(BallotHistogram.countColumns(columns, amountOfProposals, amountOfGrades, pool));
+    }
+
+    private void merge(long[] histogram) {
+        StampedLock stripe = pickStripe();
+        long stamp = stripe.readLock();
+        try {
+            for (int i = 0; i < histogram.length; i++) {
+                if (0L != histogram[i]) {
+                    this.counters[i].add(histogram[i]);
+                }
+            }
+        } finally {
+            stripe.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Takes a consistent picture of the tally, by pausing collecting while the counters are read.
+     */
+    public LongTally snapshot() {
+        long[] stamps = new long[this.stripes.length];
+        for (int i = 0; i < this.stripes.length; i++) {
+            stamps[i] = this.stripes[i].writeLock();
+        }
+
+        long[][] tallies = new long[this.amountOfProposals][this.amountOfGrades];
+        try {
+            for (int proposal = 0; proposal < this.amountOfProposals; proposal++) {
+                int offset = proposal * this.amountOfGrades;
+                for (int grade = 0; grade < this.amountOfGrades; grade++) {
+                    tallies[proposal][grade] = this.counters[offset + grade].sum();
+                }
+            }
+        } finally {
+            for (int i = this.stripes.length - 1; i >= 0; i--) {
+                this.stripes[i].unlockWrite(stamps[i]);
+            }
+        }
+
+        long amountOfJudges = 0L;
+        for (long[] tally : tallies) {
+            long amountOfJudgments = 0L;
+            for (long gradeTally : tally) {
+                amountOfJudgments = Math.addExact(amountOfJudgments, gradeTally);
+            }
+            amountOfJudges = Math.max(amountOfJudges, amountOfJudgments);
+        }
+
+        return new LongTally(tallies, amountOfJudges);
+    }
+
+    /**
+     * @return a snapshot of the tally when it is a ConcurrentCollectedTally, or the tally itself
+     */
+    static TallyInterface snapshotOf(TallyInterface tally) {
+        if (tally instanceof ConcurrentCollectedTally) {
+            return ((ConcurrentCollectedTally) tally).snapshot();
+        }
+        return tally;
+    }
+
+    @Override
+    public ProposalTallyInterface[] getProposalsTallies() {
+        return snapshot().getProposalsTallies();
+    }
+
+    @Override
+    public BigInteger getAmountOfJudges() {
+        return snapshot().getAmountOfJudges();
+    }
+
+    @Override
+    public Integer getAmountOfProposals() {
+        return this.amountOfProposals;
+    }
+
+    public Integer getAmountOfGrades() {
+        return this.amountOfGrades;
+    }
+
+    private StampedLock pickStripe() {
+        int hash = (int) Thread.currentThread().getId();
+        hash ^= (hash >>> 16);
+        return this.stripes[hash & (this.stripes.length - 1)];
+    }
+
+    private void checkJudgment(Integer proposal, Integer grade) {
+        if (0 > proposal) {
+            throw new IllegalArgumentException("Proposal index must be ≥ zero.");
+        }
+        if (amountOfProposals <= proposal) {
+            throw new IllegalArgumentException("Proposal index is too high.");
+        }
+        if (0 > grade) {
+            throw new IllegalArgumentException("Grade index must be ≥ zero.");
+        }
+        if (amountOfGrades <= grade) {
+            throw new IllegalArgumentException("Grade index is too high.");
+        }
+    }
+}
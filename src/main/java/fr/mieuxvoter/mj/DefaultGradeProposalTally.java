@@ -0,0 +1,80 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+
+/**
+ * A read-only view of a proposal tally, with its missing judgments added into a default grade.
+ *
+ * <p>The missing amount is derived from the base tally on each read, so the view follows a live
+ * base tally (like a CollectedTally) that keeps receiving judgments.  The base tally is never
+ * written into ; moving judgments detaches the view into its own copy of the filled tally.
+ * See DefaultGradeTally.
+ */
+final class DefaultGradeProposalTally implements ProposalTallyInterface {
+
+    private final ProposalTallyInterface base;
+
+    private final int defaultGrade;
+
+    private final BigInteger amountOfJudges;
+
+    /**
+     * The filled tally, once moveJudgments() detached us from the base tally, or null.
+     */
+    private BigInteger[] detached;
+
+    DefaultGradeProposalTally(ProposalTallyInterface base, int defaultGrade, BigInteger amountOfJudges) {
+        this.base = base;
+        this.defaultGrade = defaultGrade;
+        this.amountOfJudges = amountOfJudges;
+    }
+
+    /**
+     * Allocates a fresh array, sharing the BigIntegers of the base tally but the default grade's.
+     */
+    @Override
+    public BigInteger[] getTally() {
+        if (null != this.detached) {
+            return this.detached.clone();
+        }
+        BigInteger[] tally = this.base.getTally().clone();
+        BigInteger missingAmount = this.amountOfJudges.subtract(sum(tally));
+        if (0 < missingAmount.signum()) {
+            tally[this.defaultGrade] = tally[this.defaultGrade].add(missingAmount);
+        }
+        return tally;
+    }
+
+    @Override
+    public BigInteger getAmountOfJudgments() {
+        if (null != this.detached) {
+            return sum(this.detached);
+        }
+        return this.amountOfJudges.max(this.base.getAmountOfJudgments());
+    }
+
+    @Override
+    public ProposalTallyInterface duplicate() {
+        return new ProposalTally(getTally());
+    }
+
+    @Override
+    public void moveJudgments(Integer fromGrade, Integer intoGrade) {
+        if (null == this.detached) {
+            this.detached = getTally();
+        }
+        if (fromGrade.equals(intoGrade)) {
+            return;
+        }
+        this.detached[intoGrade] = this.detached[intoGrade].add(this.detached[fromGrade]);
+        this.detached[fromGrade] = BigInteger.ZERO;
+    }
+
+    private static BigInteger sum(BigInteger[] tally) {
+        BigInteger sum = BigInteger.ZERO;
+        for (BigInteger gradeTally : tally) {
+            sum = sum.add(gradeTally);
+        }
+        return sum;
+    }
+}
@@ -29,19 +29,33 @@ public abstract class DefaultGradeTally extends Tally implements TallyInterface
         super(proposalsTallies, amountOfJudges);
     }
 
+    /**
+     * Wraps each proposal tally into a view adding its missing judgments into its default grade.
+     * Neither the given array nor the tallies in it are written into, so the same (live) tally
+     * may be deliberated over and over, with or without default grades.
+     */
     protected void fillWithDefaultGrade() {
-        int amountOfProposals = getAmountOfProposals();
+        FlightRecording.DefaultGrade event = FlightRecording.startDefaultGrade();
+        ProposalTallyInterface[] proposalsTallies = getProposalsTallies();
+        int amountOfProposals = proposalsTallies.length;
+        boolean isAmountOfJudgesLong = this.amountOfJudges.bitLength() < Long.SIZE;
+        ProposalTallyInterface[] filledTallies = new ProposalTallyInterface[amountOfProposals];
         for (int i = 0; i < amountOfProposals; i++) {
-            ProposalTallyInterface proposalTally = getProposalsTallies()[i];
+            ProposalTallyInterface proposalTally = proposalsTallies[i];
             Integer defaultGrade = getDefaultGradeForProposal(proposalTally);
-            BigInteger amountOfJudgments = proposalTally.getAmountOfJudgments();
-            BigInteger missingAmount = this.amountOfJudges.subtract(amountOfJudgments);
-            int missingSign = missingAmount.compareTo(BigInteger.ZERO);
-            assert (0 <= missingSign); // ERROR: More judgments than judges!
-            if (0 < missingSign) {
-                BigInteger[] rawTally = proposalTally.getTally();
-                rawTally[defaultGrade] = rawTally[defaultGrade].add(missingAmount);
+            if (isAmountOfJudgesLong && proposalTally instanceof LongProposalTallyInterface) {
+                filledTallies[i] = new LongDefaultGradeProposalTally(
+                        (LongProposalTallyInterface) proposalTally,
+                        defaultGrade,
+                        this.amountOfJudges.longValue()
+                );
+            } else {
+                filledTallies[i] = new DefaultGradeProposalTally(proposalTally, defaultGrade, this.amountOfJudges);
             }
         }
+        setProposalsTallies(filledTallies);
+        if (null != event) {
+            event.finish(getClass().getSimpleName(), amountOfProposals, FlightRecording.saturate(this.amountOfJudges));
+        }
     }
 }
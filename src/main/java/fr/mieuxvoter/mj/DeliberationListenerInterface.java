@@ -0,0 +1,83 @@
+package fr.mieuxvoter.mj;
+
+/**
+ * Listens to the phases of MajorityJudgmentDeliberator.deliberate(), to find out where time goes.
+ *
+ * <p>Register one with MajorityJudgmentDeliberator.setListener().  Without one, deliberations
+ * neither read the clock nor count anything.  Listeners are called on the thread that called
+ * deliberate(), once each phase is over, in the order of the phases.  They are not called when
+ * the deliberation fails.
+ *
+ * <p>Allocated bytes are the ones allocated by the calling thread, or -1 when the JVM cannot tell.
+ * Work forked onto the ForkJoinPool of the deliberator is timed, but its allocations are not
+ * counted.
+ */
+public interface DeliberationListenerInterface {
+
+    /**
+     * The numbered steps of a deliberation.
+     */
+    enum Phase {
+        /**
+         * Checking that the tally is coherent and balanced.
+         */
+        VALIDATION,
+        /**
+         * I. Walking the median gauge of each proposal, for its score, merit and analysis.
+         */
+        SCORING,
+        /**
+         * II. Sorting the proposals by score.
+         */
+        SORTING,
+        /**
+         * III. Attributing ranks, shared between equal scores.
+         */
+        RANKING,
+        /**
+         * IV. Summing the merits, computed in the SCORING phase.
+         */
+        MERIT,
+        /**
+         * V. Approximating the merit from absolute rank of each proposal.
+         */
+        AFFINE_MERIT,
+        /**
+         * VI. Computing the relative merits of each proposal.
+         */
+        RELATIVE_MERIT,
+    }
+
+    /**
+     * Which arithmetic the walks of the median gauges ran on.
+     */
+    enum Path {
+        /**
+         * All the walks ran on primitive longs.
+         */
+        PRIMITIVE,
+        /**
+         * Some walks overflowed longs, or were given BigInteger tallies, and ran on BigIntegers.
+         */
+        MIXED,
+        /**
+         * All the walks ran on BigIntegers.
+         */
+        BIG_INTEGER,
+    }
+
+    /**
+     * @param count          amount of proposals the phase went through
+     * @param nanoseconds    wall-clock duration of the phase
+     * @param allocatedBytes allocated by the calling thread during the phase, or -1
+     */
+    default void onPhase(Phase phase, int count, long nanoseconds, long allocatedBytes) {
+    }
+
+    /**
+     * @param nanoseconds    wall-clock duration of the whole deliberation
+     * @param allocatedBytes allocated by the calling thread during the whole deliberation, or -1
+     */
+    default void onDeliberation(Path path, int amountOfProposals, long nanoseconds, long allocatedBytes) {
+    }
+}
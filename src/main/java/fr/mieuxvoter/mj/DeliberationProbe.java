@@ -0,0 +1,137 @@
+package fr.mieuxvoter.mj;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the phases of a deliberation for a DeliberationListenerInterface and for the Java
+ * Flight Recorder, and does nothing at all when there is none of them.  Phases are laps: each one
+ * lasts from the end of the previous one.
+ */
+final class DeliberationProbe {
+
+    static final DeliberationProbe NONE = new DeliberationProbe(null, null);
+
+    /**
+     * Null when the JVM cannot count the bytes allocated by a thread.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = findAllocations();
+
+    private final DeliberationListenerInterface listener;
+
+    private final FlightRecording.Deliberation event;
+
+    private long startNanos;
+
+    private long startBytes;
+
+    private long lapNanos;
+
+    private long lapBytes;
+
+    private LongAdder walks;
+
+    private LongAdder bigWalks;
+
+    private DeliberationProbe(DeliberationListenerInterface listener, FlightRecording.Deliberation event) {
+        this.listener = listener;
+        this.event = event;
+        if (null != listener || null != event) {
+            this.startNanos = this.lapNanos = System.nanoTime();
+            this.startBytes = this.lapBytes = readAllocatedBytes();
+            this.walks = new LongAdder();
+            this.bigWalks = new LongAdder();
+        }
+    }
+
+    /**
+     * Starts measuring, if there is anyone to tell.
+     */
+    static DeliberationProbe start(DeliberationListenerInterface listener) {
+        FlightRecording.Deliberation event = FlightRecording.startDeliberation();
+        return (null == listener && null == event) ? NONE : new DeliberationProbe(listener, event);
+    }
+
+    /**
+     * Counts the path of a walk.  Safe to call from the workers of a pool.
+     */
+    void countWalk(MedianGaugeWalker walker) {
+        if (this == NONE) {
+            return;
+        }
+        this.walks.increment();
+        if (!walker.isUsingPrimitives()) {
+            this.bigWalks.increment();
+        }
+    }
+
+    void lap(DeliberationListenerInterface.Phase phase, int count) {
+        if (null == this.listener) {
+            return;
+        }
+        long nanos = System.nanoTime();
+        long bytes = readAllocatedBytes();
+        this.listener.onPhase(phase, count, nanos - this.lapNanos, elapsedBytes(this.lapBytes, bytes));
+        // Do not bill the listener to the next phase
+        this.lapNanos = System.nanoTime();
+        this.lapBytes = readAllocatedBytes();
+    }
+
+    /**
+     * @param amountOfJudges or null when unknown
+     */
+    void finish(int amountOfProposals, int amountOfGrades, BigInteger amountOfJudges) {
+        if (this == NONE) {
+            return;
+        }
+        long nanos = System.nanoTime();
+        long bytes = readAllocatedBytes();
+        DeliberationListenerInterface.Path path;
+        if (0L == this.bigWalks.sum()) {
+            path = DeliberationListenerInterface.Path.PRIMITIVE;
+        } else if (this.bigWalks.sum() == this.walks.sum()) {
+            path = DeliberationListenerInterface.Path.BIG_INTEGER;
+        } else {
+            path = DeliberationListenerInterface.Path.MIXED;
+        }
+        if (null != this.listener) {
+            this.listener.onDeliberation(
+                    path,
+                    amountOfProposals,
+                    nanos - this.startNanos,
+                    elapsedBytes(this.startBytes, bytes)
+            );
+        }
+        if (null != this.event) {
+            this.event.finish(amountOfProposals, amountOfGrades, FlightRecording.saturate(amountOfJudges), path.name());
+        }
+    }
+
+    private static long elapsedBytes(long from, long to) {
+        return (0L > from || 0L > to) ? -1L : to - from;
+    }
+
+    private static long readAllocatedBytes() {
+        if (null == ALLOCATIONS) {
+            return -1L;
+        }
+        return ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean findAllocations() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+                if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                    return allocations;
+                }
+            }
+        } catch (LinkageError | SecurityException e) {
+            // Not a HotSpot-like JVM, or not allowed to look: we cannot tell allocations
+        }
+        return null;
+    }
+}
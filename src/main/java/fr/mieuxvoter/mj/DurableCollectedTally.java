@@ -0,0 +1,438 @@
+package fr.mieuxvoter.mj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * A CollectedTally that survives crashes, thanks to a write-ahead log and checkpoints.
+ *
+ * <p>Collected judgments are appended as compact records (varints) to a pending buffer.  Once the
+ * buffer holds enough records, they are appended to a memory-mapped log as one checksummed frame,
+ * and the log is forced to disk: this is a group commit, whose cost is shared by all the records
+ * of the frame.  Judgments are durable once their frame is committed, or after flush().
+ *
+ * <p>Once the log grows big enough, the whole tally is written into a checkpoint, and a new log
+ * is started.  Opening the directory again loads the last checkpoint, and only replays the logs
+ * written since.  Frames torn by a crash are detected by their checksum, and dropped.
+ *
+ * <p>Directory layout: one "checkpoint" file (the generation of the first log it does not hold,
+ * then the tally in the format of TallySerializer), and "log-GENERATION" files.
+ */
+public class DurableCollectedTally extends CollectedTally implements Closeable {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+
+    static final String LOG_FILE_PREFIX = "log-";
+
+    /**
+     * The log file is mapped by regions of this size, at least.
+     */
+    static final int LOG_REGION_SIZE = 1 << 24;
+
+    static final int DEFAULT_GROUP_COMMIT_SIZE = 1 << 16;
+
+    static final long DEFAULT_CHECKPOINT_INTERVAL = 1L << 26;
+
+    private static final int FRAME_HEADER_SIZE = 8; // payload size, then its CRC32
+
+    private static final byte RECORD_JUDGMENT = 0; // proposal, grade
+
+    private static final byte RECORD_BALLOT = 1; // one grade per proposal
+
+    private final Path directory;
+
+    private int groupCommitSize = DEFAULT_GROUP_COMMIT_SIZE;
+
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    private ByteBuffer pending;
+
+    private long generation;
+
+    private FileChannel logChannel;
+
+    private MappedByteBuffer logRegion;
+
+    private long logRegionStart;
+
+    private long logPosition;
+
+    private boolean isReplaying = false;
+
+    /**
+     * Opens (or creates) the durable tally stored in the directory, and recovers its state.
+     *
+     * @throws IllegalArgumentException when the directory holds a tally of another shape
+     */
+    public DurableCollectedTally(Path directory, Integer amountOfProposals, Integer amountOfGrades)
+            throws IOException {
+        super(amountOfProposals, amountOfGrades);
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        int maxRecordSize = 1 + 5 * Math.max(2, amountOfProposals);
+        this.pending = ByteBuffer.allocate(Math.max(this.groupCommitSize, maxRecordSize) + maxRecordSize);
+
+        recover();
+    }
+
+    /**
+     * @param groupCommitSize in bytes of records, above which the pending records are committed
+     */
+    public synchronized void setGroupCommitSize(int groupCommitSize) {
+        this.groupCommitSize = groupCommitSize;
+        int maxRecordSize = 1 + 5 * Math.max(2, amountOfProposals);
+        if (this.pending.capacity() < groupCommitSize + maxRecordSize) {
+            ByteBuffer larger = ByteBuffer.allocate(groupCommitSize + maxRecordSize);
+            this.pending.flip();
+            larger.put(this.pending);
+            this.pending = larger;
+        }
+    }
+
+    /**
+     * @param checkpointInterval in bytes of log, above which a checkpoint is written
+     */
+    public synchronized void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public synchronized void collect(Integer proposal, Integer grade) {
+        super.collect(proposal, grade);
+        if (this.isReplaying) {
+            return;
+        }
+
+        ensurePendingRoom(1 + 5 + 5);
+        this.pending.put(RECORD_JUDGMENT);
+        putVarint(this.pending, proposal);
+        putVarint(this.pending, grade);
+        commitIfNeeded();
+    }
+
+    @Override
+    public synchronized void collectBallots(int[][] ballots, ForkJoinPool pool) {
+        super.collectBallots(ballots, pool);
+        if (this.isReplaying) {
+            return;
+        }
+
+        for (int[] ballot : ballots) {
+            ensurePendingRoom(1 + 5 * ballot.length);
+            this.pending.put(RECORD_BALLOT);
+            for (int grade : ballot) {
+                putVarint(this.pending, grade);
+            }
+        }
+        commitIfNeeded();
+    }
+
+    @Override
+    public synchronized void collectColumns(int[][] columns, ForkJoinPool pool) {
+        super.collectColumns(columns, pool);
+        if (this.isReplaying) {
+            return;
+        }
+
+        int amountOfBallots = (0 < columns.length) ? columns[0].length : 0;
+        for (int ballot = 0; ballot < amountOfBallots; ballot++) {
+            ensurePendingRoom(1 + 5 * columns.length);
+            this.pending.put(RECORD_BALLOT);
+            for (int[] column : columns) {
+                putVarint(this.pending, column[ballot]);
+            }
+        }
+        commitIfNeeded();
+    }
+
+    /**
+     * Commits the pending records, and forces them to disk.
+     */
+    public synchronized void flush() throws IOException {
+        if (0 < this.pending.position()) {
+            writeFrame();
+        }
+        this.logRegion.force();
+    }
+
+    /**
+     * Writes the whole tally into a new checkpoint, and starts a new log.
+     * Logs held by the checkpoint are deleted.
+     */
+    public synchronized void checkpoint() throws IOException {
+        flush();
+        long nextGeneration = this.generation + 1;
+        writeCheckpoint(nextGeneration);
+        closeLog();
+        deleteLogsBefore(nextGeneration);
+        openLog(nextGeneration);
+    }
+
+    @Override
+    public synchronized void finishCollectSample() {
+        super.finishCollectSample();
+    }
+
+    /**
+     * Commits the pending records.  The tally may not be used afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        finishCollectSample();
+        flush();
+        closeLog();
+    }
+
+    private void recover() throws IOException {
+        long firstGeneration = 0L;
+        Path checkpointPath = this.directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointPath)) {
+            ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointPath));
+            firstGeneration = checkpoint.getLong();
+            loadCheckpoint(TallySerializer.readFrom(checkpoint));
+        }
+
+        long nextGeneration = firstGeneration;
+        this.isReplaying = true;
+        try {
+            for (long logGeneration : listLogGenerations()) {
+                if (logGeneration >= firstGeneration) {
+                    replayLog(getLogPath(logGeneration));
+                    nextGeneration = logGeneration + 1;
+                }
+            }
+        } finally {
+            this.isReplaying = false;
+        }
+
+        // Start afresh, from a checkpoint holding everything we recovered
+        writeCheckpoint(nextGeneration);
+        deleteLogsBefore(nextGeneration);
+        openLog(nextGeneration);
+    }
+
+    /**
+     * @param nextGeneration of the first log that the checkpoint will NOT hold
+     */
+    private void writeCheckpoint(long nextGeneration) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + TallySerializer.sizeOf(this));
+        checkpoint.putLong(nextGeneration);
+        TallySerializer.writeTo(this, checkpoint);
+        checkpoint.flip();
+
+        Path temporary = this.directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            while (checkpoint.hasRemaining()) {
+                channel.write(checkpoint);
+            }
+            channel.force(true);
+        }
+        Files.move(
+                temporary,
+                this.directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    private void deleteLogsBefore(long nextGeneration) throws IOException {
+        for (long logGeneration : listLogGenerations()) {
+            if (logGeneration < nextGeneration) {
+                Files.deleteIfExists(getLogPath(logGeneration));
+            }
+        }
+    }
+
+    private void loadCheckpoint(TallyInterface checkpoint) {
+        if (!amountOfProposals.equals(checkpoint.getAmountOfProposals())) {
+            throw new IllegalArgumentException("The stored tally holds another amount of proposals.");
+        }
+        ProposalTallyInterface[] proposalsTallies = checkpoint.getProposalsTallies();
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            BigInteger[] tally = proposalsTallies[proposal].getTally();
+            if (tally.length != amountOfGrades) {
+                throw new IllegalArgumentException("The stored tally holds another amount of grades.");
+            }
+            this.proposalsTallies[proposal].setTally(tally);
+        }
+    }
+
+    private void replayLog(Path path) throws IOException {
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= FRAME_HEADER_SIZE) {
+            int payloadSize = log.getInt();
+            int checksum = log.getInt();
+            if (0 >= payloadSize || payloadSize > log.remaining()) {
+                break; // end of the log, or a torn frame
+            }
+            crc.reset();
+            crc.update(log.array(), log.position(), payloadSize);
+            if ((int) crc.getValue() != checksum) {
+                break; // torn frame
+            }
+
+            // Built against the Java 8 API, where limit() returns a Buffer, so that it runs there
+            ByteBuffer payload = (ByteBuffer) log.slice().limit(payloadSize);
+            log.position(log.position() + payloadSize);
+            while (payload.hasRemaining()) {
+                if (RECORD_JUDGMENT == payload.get()) {
+                    collect(getVarint(payload), getVarint(payload));
+                } else {
+                    int[] ballot = new int[amountOfProposals];
+                    for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                        ballot[proposal] = getVarint(payload);
+                    }
+                    collectBallots(new int[][]{ballot}, null);
+                }
+            }
+        }
+    }
+
+    private List<Long> listLogGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(this.directory, LOG_FILE_PREFIX + "*")) {
+            for (Path log : logs) {
+                String suffix = log.getFileName().toString().substring(LOG_FILE_PREFIX.length());
+                try {
+                    generations.add(Long.parseLong(suffix));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path getLogPath(long logGeneration) {
+        return this.directory.resolve(LOG_FILE_PREFIX + logGeneration);
+    }
+
+    private void openLog(long logGeneration) throws IOException {
+        this.generation = logGeneration;
+        this.logChannel = FileChannel.open(
+                getLogPath(logGeneration),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        this.logPosition = 0L;
+        mapLogRegion(LOG_REGION_SIZE);
+    }
+
+    private void closeLog() throws IOException {
+        if (null != this.logChannel) {
+            this.logRegion.force();
+            this.logRegion = null;
+            this.logChannel.close();
+            this.logChannel = null;
+        }
+    }
+
+    /**
+     * Maps a region of the log starting at the current position.  Mapping beyond the end of
+     * the file grows it with zeroes, which read as the end of the log.
+     */
+    private void mapLogRegion(int minimumSize) throws IOException {
+        if (null != this.logRegion) {
+            this.logRegion.force();
+        }
+        this.logRegionStart = this.logPosition;
+        this.logRegion = this.logChannel.map(
+                FileChannel.MapMode.READ_WRITE,
+                this.logRegionStart,
+                Math.max(LOG_REGION_SIZE, minimumSize)
+        );
+    }
+
+    private void ensurePendingRoom(int size) {
+        if (this.pending.remaining() < size) {
+            try {
+                writeFrame();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void commitIfNeeded() {
+        if (this.pending.position() < this.groupCommitSize) {
+            return;
+        }
+        try {
+            flush();
+            if (this.logPosition >= this.checkpointInterval) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the pending records to the log, as one frame.  Does NOT force it to disk.
+     */
+    private void writeFrame() throws IOException {
+        int payloadSize = this.pending.position();
+        int frameSize = FRAME_HEADER_SIZE + payloadSize;
+        // Keep room for the empty header that marks the end of the log
+        if (this.logPosition + frameSize + FRAME_HEADER_SIZE > this.logRegionStart + this.logRegion.capacity()) {
+            mapLogRegion(frameSize + FRAME_HEADER_SIZE);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(this.pending.array(), 0, payloadSize);
+
+        int offset = (int) (this.logPosition - this.logRegionStart);
+        this.logRegion.putInt(offset + 4, (int) crc.getValue());
+        this.logRegion.position(offset + FRAME_HEADER_SIZE);
+        this.logRegion.put(this.pending.array(), 0, payloadSize);
+        // The size goes last, so that a frame is never complete before its payload is
+        this.logRegion.putInt(offset, payloadSize);
+
+        this.logPosition += frameSize;
+        this.pending.clear();
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while (0 != (value & ~0x7F)) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                return value;
+            }
+        }
+        throw new InvalidTallyFormatException("Varint is too long.");
+    }
+}
@@ -0,0 +1,118 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+
+/**
+ * Our Java Flight Recorder events, behind small interfaces, since the library targets Java 8.
+ *
+ * <p>The events extend jdk.jfr.Event, and live in their own source set (src/jfr/java), compiled
+ * apart from the rest of the library when the JDK ships with the jdk.jfr API.  We look for their
+ * recorder at runtime: without jdk.jfr, or without the events, nothing is recorded.
+ *
+ * <p>The start methods return null when their event is not being recorded, so that the
+ * instrumented code costs a null check:
+ * <pre>
+ * FlightRecording.Deliberation event = FlightRecording.startDeliberation();
+ * // …
+ * if (null != event) {
+ *     event.finish(…);
+ * }
+ * </pre>
+ */
+final class FlightRecording {
+
+    /**
+     * Starts the events, see JfrRecorder.
+     */
+    interface Recorder {
+
+        Deliberation startDeliberation();
+
+        Normalization startNormalization();
+
+        DefaultGrade startDefaultGrade();
+
+        Collect startCollect();
+    }
+
+    interface Deliberation {
+
+        /**
+         * @param amountOfJudges see saturate()
+         */
+        void finish(int amountOfProposals, int amountOfGrades, long amountOfJudges, String path);
+    }
+
+    interface Normalization {
+
+        void finish(int amountOfProposals, int lcmBitLength, boolean primitive);
+    }
+
+    interface DefaultGrade {
+
+        /**
+         * @param amountOfJudges see saturate()
+         */
+        void finish(String tally, int amountOfProposals, long amountOfJudges);
+    }
+
+    interface Collect {
+
+        /**
+         * @param collectNanoseconds spent collecting the judgments, without the idle time of a sample
+         */
+        void finish(int amountOfProposals, long amountOfJudgments, long collectNanoseconds, boolean batch);
+    }
+
+    static final String CATEGORY = "Majority Judgment";
+
+    /**
+     * Null when we cannot record anything.
+     */
+    private static final Recorder RECORDER = findRecorder();
+
+    private FlightRecording() {
+    }
+
+    static boolean isAvailable() {
+        return null != RECORDER;
+    }
+
+    static Deliberation startDeliberation() {
+        return (null == RECORDER) ? null : RECORDER.startDeliberation();
+    }
+
+    static Normalization startNormalization() {
+        return (null == RECORDER) ? null : RECORDER.startNormalization();
+    }
+
+    static DefaultGrade startDefaultGrade() {
+        return (null == RECORDER) ? null : RECORDER.startDefaultGrade();
+    }
+
+    static Collect startCollect() {
+        return (null == RECORDER) ? null : RECORDER.startCollect();
+    }
+
+    /**
+     * @return the amount, or Long.MAX_VALUE when it does not fit, or -1 when unknown (null)
+     */
+    static long saturate(BigInteger amount) {
+        if (null == amount) {
+            return -1L;
+        }
+        return (amount.bitLength() < Long.SIZE) ? amount.longValue() : Long.MAX_VALUE;
+    }
+
+    private static Recorder findRecorder() {
+        ClassLoader loader = FlightRecording.class.getClassLoader();
+        try {
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (Recorder) Class.forName("fr.mieuxvoter.mj.JfrRecorder", true, loader)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+            return null; // no jdk.jfr API, or the events were not built
+        }
+    }
+}
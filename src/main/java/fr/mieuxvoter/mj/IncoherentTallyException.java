@@ -1,13 +1,17 @@
 package fr.mieuxvoter.mj;
 
-/** Raised when the provided tally holds negative values, or infinity. */
+/**
+ * Raised when the provided tally holds negative values, or infinity, or proposals judged with
+ * different amounts of grades.
+ */
 class IncoherentTallyException extends InvalidTallyException {
 
     private static final long serialVersionUID = 5858986651601202903L;
 
     @Override
     public String getMessage() {
-        return ("The provided tally holds negative values, or infinity. "
+        return ("The provided tally holds negative values, or infinity, "
+                + "or proposals with different amounts of grades. "
                 + (null == super.getMessage() ? "" : super.getMessage()));
     }
 }
@@ -0,0 +1,346 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Deliberate live polls, over and over, while judgments keep coming in.
+ *
+ * <p>This deliberator holds its own (primitive) tally, and remembers which proposals received
+ * judgments since the last deliberation.  Only those "dirty" proposals are walked again, and
+ * repositioned in a sorted order maintained across deliberations.  Ranking the others is a mere
+ * pass over that order.  When the amount of judges changes, the tallies (when filled with a
+ * default grade), the scores and the merits of all proposals change, and everything is computed
+ * again.
+ *
+ * <p>Results are the same as MajorityJudgmentDeliberator.deliberate() on toTally().  Each
+ * deliberation hands out its own ProposalResults, that later deliberations leave alone.  Their
+ * relative merits are computed on first access, from the sums of the merits of the deliberation.
+ */
+public class IncrementalDeliberator {
+
+    private final int amountOfProposals;
+
+    private final int amountOfGrades;
+
+    /**
+     * Missing judgments are filled into this grade, like StaticDefaultTally does.
+     * When null, all proposals must have received the same amount of judgments.
+     */
+    private final Integer defaultGrade;
+
+    private final boolean favorContestation;
+
+    /**
+     * Collected judgments, without the default grade.
+     */
+    private final long[][] tallies;
+
+    private final long[] amountsOfJudgments;
+
+    private long maxAmountOfJudgments = 0L;
+
+    private int amountOfProposalsAtMax;
+
+    /**
+     * When negative, we use the highest amount of judgments received by a proposal.
+     */
+    private long amountOfJudges = -1L;
+
+    private long lastAmountOfJudges = -1L;
+
+    private final boolean[] isDirty;
+
+    private final int[] dirtyProposals;
+
+    private int amountOfDirtyProposals = 0;
+
+    /**
+     * What we know of each proposal, updated in place, and never handed out.
+     */
+    private final ProposalResult[] proposalResults;
+
+    /**
+     * Indices of the proposals, "best" first.  Ties keep the order of the indices.
+     */
+    private final TreeSet<Integer> order;
+
+    private BigInteger sumOfMerits = BigInteger.ZERO;
+
+    public IncrementalDeliberator(Integer amountOfProposals, Integer amountOfGrades) {
+        this(amountOfProposals, amountOfGrades, null, true);
+    }
+
+    public IncrementalDeliberator(Integer amountOfProposals, Integer amountOfGrades, Integer defaultGrade) {
+        this(amountOfProposals, amountOfGrades, defaultGrade, true);
+    }
+
+    public IncrementalDeliberator(
+            Integer amountOfProposals,
+            Integer amountOfGrades,
+            Integer defaultGrade,
+            boolean favorContestation
+    ) {
+        if (0 > amountOfProposals) {
+            throw new IllegalArgumentException("Amount of proposals must be ≥ zero.");
+        }
+        if (0 >= amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be > zero.");
+        }
+        if (null != defaultGrade && (0 > defaultGrade || amountOfGrades <= defaultGrade)) {
+            throw new IllegalArgumentException("Default grade is out of range.");
+        }
+
+        this.amountOfProposals = amountOfProposals;
+        this.amountOfGrades = amountOfGrades;
+        this.defaultGrade = defaultGrade;
+        this.favorContestation = favorContestation;
+
+        this.tallies = new long[amountOfProposals][amountOfGrades];
+        this.amountsOfJudgments = new long[amountOfProposals];
+        this.amountOfProposalsAtMax = amountOfProposals;
+        this.isDirty = new boolean[amountOfProposals];
+        this.dirtyProposals = new int[amountOfProposals];
+
+        this.proposalResults = new ProposalResult[amountOfProposals];
+        for (int i = 0; i < amountOfProposals; i++) {
+            this.proposalResults[i] = new ProposalResult();
+            this.proposalResults[i].setIndex(i);
+        }
+        this.order = new TreeSet<>((i0, i1) -> {
+            int comparison = this.proposalResults[i1].getPackedScore().compareTo(
+                    this.proposalResults[i0].getPackedScore()
+            );
+            return (0 != comparison) ? comparison : Integer.compare(i0, i1);
+        });
+    }
+
+    public void collect(Integer proposal, Integer grade) {
+        if (0 > proposal) {
+            throw new IllegalArgumentException("Proposal index must be ≥ zero.");
+        }
+        if (amountOfProposals <= proposal) {
+            throw new IllegalArgumentException("Proposal index is too high.");
+        }
+        if (0 > grade) {
+            throw new IllegalArgumentException("Grade index must be ≥ zero.");
+        }
+        if (amountOfGrades <= grade) {
+            throw new IllegalArgumentException("Grade index is too high.");
+        }
+
+        this.tallies[proposal][grade]++;
+        long amountOfJudgments = ++this.amountsOfJudgments[proposal];
+        if (amountOfJudgments > this.maxAmountOfJudgments) {
+            this.maxAmountOfJudgments = amountOfJudgments;
+            this.amountOfProposalsAtMax = 1;
+        } else if (amountOfJudgments == this.maxAmountOfJudgments) {
+            this.amountOfProposalsAtMax++;
+        }
+
+        if (!this.isDirty[proposal]) {
+            this.isDirty[proposal] = true;
+            this.dirtyProposals[this.amountOfDirtyProposals++] = proposal;
+        }
+    }
+
+    /**
+     * Collects a whole ballot, that is one grade per proposal.
+     */
+    public void collectBallot(int[] ballot) {
+        if (ballot.length != amountOfProposals) {
+            throw new IllegalArgumentException("Ballots need exactly one grade per proposal.");
+        }
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            collect(proposal, ballot[proposal]);
+        }
+    }
+
+    /**
+     * Only meaningful with a default grade, to account for judges that did not judge anything.
+     *
+     * @param amountOfJudges or a negative value to use the highest amount of judgments received
+     */
+    public void setAmountOfJudges(long amountOfJudges) {
+        this.amountOfJudges = amountOfJudges;
+    }
+
+    public long getAmountOfJudges() {
+        return (0 > this.amountOfJudges) ? this.maxAmountOfJudgments : this.amountOfJudges;
+    }
+
+    /**
+     * @return a copy of the tally, with the missing judgments filled into the default grade
+     */
+    public LongTally toTally() {
+        LongProposalTally[] proposalsTallies = new LongProposalTally[amountOfProposals];
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            proposalsTallies[proposal] = getProposalTally(proposal, getAmountOfJudges());
+        }
+        return new LongTally(proposalsTallies, getAmountOfJudges());
+    }
+
+    /**
+     * Walks the proposals that received judgments since last time, or all of them if the amount
+     * of judges changed, and ranks them all.
+     */
+    public ResultInterface deliberate() throws InvalidTallyException {
+        long amountOfJudges = getAmountOfJudges();
+        checkTally(amountOfJudges);
+        BigInteger bigAmountOfJudges = BigInteger.valueOf(amountOfJudges);
+
+        // I. Figure out what we need to compute again
+        boolean isEverythingDirty = (amountOfJudges != this.lastAmountOfJudges);
+        if (isEverythingDirty) {
+            this.order.clear();
+            this.sumOfMerits = BigInteger.ZERO;
+            Arrays.fill(this.isDirty, false);
+            this.amountOfDirtyProposals = amountOfProposals;
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                this.dirtyProposals[proposal] = proposal;
+            }
+        }
+        BigInteger maxMerit = MajorityJudgmentDeliberator.computeMaxMerit(amountOfGrades, bigAmountOfJudges);
+
+        // II. Walk the dirty proposals again, and put them back in order
+        for (int d = 0; d < this.amountOfDirtyProposals; d++) {
+            int proposal = this.dirtyProposals[d];
+            ProposalResult proposalResult = this.proposalResults[proposal];
+            if (!isEverythingDirty) {
+                this.order.remove(proposal); // MUST happen while its score is still the old one
+                this.sumOfMerits = this.sumOfMerits.subtract(proposalResult.getMerit());
+            }
+
+            LongProposalTally proposalTally = getProposalTally(proposal, amountOfJudges);
+            MedianGaugeWalker walker = new MedianGaugeWalker(proposalTally, this.favorContestation);
+            proposalResult.setPackedScore(walker.computeScore(bigAmountOfJudges, false));
+            proposalResult.setMerit(walker.computeMerit(bigAmountOfJudges));
+            proposalResult.setAnalysis(walker.toAnalysis(proposalTally));
+            proposalResult.setAffineMerit(MajorityJudgmentDeliberator.adjustMeritToAffine(
+                    proposalResult.getMerit(),
+                    maxMerit,
+                    bigAmountOfJudges,
+                    amountOfGrades
+            ));
+
+            this.sumOfMerits = this.sumOfMerits.add(proposalResult.getMerit());
+            this.order.add(proposal);
+            this.isDirty[proposal] = false;
+        }
+        this.amountOfDirtyProposals = 0;
+        this.lastAmountOfJudges = amountOfJudges;
+
+        // III. Rank, from the maintained order
+        ProposalResult[] proposalResultsSorted = new ProposalResult[amountOfProposals];
+        int position = 0;
+        for (Integer proposal : this.order) {
+            proposalResultsSorted[position++] = this.proposalResults[proposal];
+        }
+        MajorityJudgmentDeliberator.attributeRanks(proposalResultsSorted);
+
+        // IV. Hand out copies, whose relative merits will be computed on demand
+        Refresh refresh = new Refresh(this.sumOfMerits);
+        RefreshedProposalResult[] proposalResults = new RefreshedProposalResult[amountOfProposals];
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            proposalResults[proposal] = new RefreshedProposalResult(refresh, this.proposalResults[proposal]);
+        }
+        refresh.proposalResults = proposalResults;
+        for (position = 0; position < amountOfProposals; position++) {
+            proposalResultsSorted[position] = proposalResults[proposalResultsSorted[position].getIndex()];
+        }
+
+        Result result = new Result();
+        result.setProposalResults(proposalResults);
+        result.setProposalResultsRanked(proposalResultsSorted);
+
+        return result;
+    }
+
+    private void checkTally(long amountOfJudges) throws InvalidTallyException {
+        if (amountOfJudges < this.maxAmountOfJudgments) {
+            throw new UnbalancedTallyException(); // more judgments than judges
+        }
+        if (null == this.defaultGrade) {
+            boolean isBalanced = (this.amountOfProposalsAtMax == amountOfProposals)
+                    && (amountOfJudges == this.maxAmountOfJudgments || 0 == amountOfProposals);
+            if (!isBalanced) {
+                throw new UnbalancedTallyException();
+            }
+        }
+    }
+
+    private LongProposalTally getProposalTally(int proposal, long amountOfJudges) {
+        long[] tally = Arrays.copyOf(this.tallies[proposal], amountOfGrades);
+        if (null != this.defaultGrade) {
+            tally[this.defaultGrade] += amountOfJudges - this.amountsOfJudgments[proposal];
+        }
+        return new LongProposalTally(tally);
+    }
+
+    /**
+     * What the results of one deliberation share: the sums their relative merits derive from.
+     */
+    private static final class Refresh {
+
+        private final BigInteger sumOfMerits;
+
+        private RefreshedProposalResult[] proposalResults;
+
+        private Double sumOfAffineMerits;
+
+        Refresh(BigInteger sumOfMerits) {
+            this.sumOfMerits = sumOfMerits;
+        }
+
+        synchronized Double getSumOfAffineMerits() {
+            if (null == this.sumOfAffineMerits) {
+                double sum = 0.0; // in order, like deliberate() does
+                for (ProposalResult proposalResult : this.proposalResults) {
+                    sum += proposalResult.getAffineMerit();
+                }
+                this.sumOfAffineMerits = sum;
+            }
+            return this.sumOfAffineMerits;
+        }
+    }
+
+    /**
+     * A copy of the result of a proposal, as it was at one deliberation.
+     */
+    private static final class RefreshedProposalResult extends ProposalResult {
+
+        private final Refresh refresh;
+
+        RefreshedProposalResult(Refresh refresh, ProposalResult proposalResult) {
+            this.refresh = refresh;
+            setIndex(proposalResult.getIndex());
+            setRank(proposalResult.getRank());
+            setPackedScore(proposalResult.getPackedScore());
+            setMerit(proposalResult.getMerit());
+            setAffineMerit(proposalResult.getAffineMerit());
+            setAnalysis(proposalResult.getAnalysis());
+            this.relativeMerit = null;
+            this.relativeAffineMerit = null;
+        }
+
+        @Override
+        public synchronized Double getRelativeMerit() {
+            if (null == this.relativeMerit) {
+                computeRelativeMerit(this.refresh.sumOfMerits);
+            }
+            return this.relativeMerit;
+        }
+
+        @Override
+        public Double getRelativeAffineMerit() {
+            Double sumOfAffineMerits = this.refresh.getSumOfAffineMerits(); // NOT while holding our own lock
+            synchronized (this) {
+                if (null == this.relativeAffineMerit) {
+                    computeRelativeAffineMerit(sumOfAffineMerits);
+                }
+                return this.relativeAffineMerit;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fr.mieuxvoter.mj;
+
+/** Raised when the provided bytes do not hold a tally that TallySerializer can read. */
+public class InvalidTallyFormatException extends InvalidTallyException {
+
+    private static final long serialVersionUID = 7293640155102843217L;
+
+    private final String reason;
+
+    public InvalidTallyFormatException(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public String getMessage() {
+        return ("The provided bytes do not hold a readable tally. " + this.reason);
+    }
+}
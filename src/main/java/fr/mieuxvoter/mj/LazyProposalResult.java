@@ -0,0 +1,238 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+
+/**
+ * A ProposalResult whose merits and analysis are only computed when someone asks for them.
+ *
+ * <p>Ranking only requires the scores, so that's all MajorityJudgmentDeliberator.deliberateLazily()
+ * computes.  The merit, affine merit and analysis are memoized on the first call to their getter.
+ * Relative merits are derived from sums shared by all the proposals of the poll, that are also
+ * computed (once) on first access.
+ *
+ * <p>Values are the same as the ones eagerly computed by MajorityJudgmentDeliberator.deliberate().
+ * When ranking a RationalNormalizedTally, even the scores are computed on demand.
+ */
+public class LazyProposalResult extends ProposalResult {
+
+    /**
+     * What all the proposals of a poll share, including the lazily computed sums of merits.
+     */
+    static final class Poll {
+
+        private final TallyInterface tally;
+
+        private final boolean favorContestation;
+
+        private final boolean numerizeScore;
+
+        /**
+         * Guards the resolution of the tally below, and never takes any other lock.
+         */
+        private final Object resolution = new Object();
+
+        private ProposalTallyInterface[] tallies;
+
+        private BigInteger amountOfJudges;
+
+        private int amountOfGrades;
+
+        private BigInteger maxMerit;
+
+        private LazyProposalResult[] proposalResults;
+
+        private BigInteger sumOfMerits;
+
+        private Double sumOfAffineMerits;
+
+        /**
+         * The tallies that were ranked, so that a live tally collecting more judgments since
+         * does not change the merits nor the analyses.
+         */
+        Poll(
+                ProposalTallyInterface[] tallies,
+                BigInteger amountOfJudges,
+                boolean favorContestation,
+                boolean numerizeScore
+        ) {
+            this.tally = null;
+            this.favorContestation = favorContestation;
+            this.numerizeScore = numerizeScore;
+            resolve(tallies, amountOfJudges);
+        }
+
+        /**
+         * The tally is only read when a proposal result needs it, since it may be costly to
+         * compute, like the normalized tallies of a RationalNormalizedTally.
+         */
+        Poll(RationalNormalizedTally tally, boolean favorContestation, boolean numerizeScore) {
+            this.tally = tally;
+            this.favorContestation = favorContestation;
+            this.numerizeScore = numerizeScore;
+        }
+
+        private void resolve() {
+            synchronized (this.resolution) {
+                if (null == this.tallies) {
+                    resolve(this.tally.getProposalsTallies(), this.tally.getAmountOfJudges());
+                }
+            }
+        }
+
+        private void resolve(ProposalTallyInterface[] tallies, BigInteger amountOfJudges) {
+            this.amountOfJudges = amountOfJudges;
+            this.amountOfGrades = (0 < tallies.length)
+                    ? MajorityJudgmentDeliberator.countGrades(tallies[0])
+                    : 0;
+            this.maxMerit = MajorityJudgmentDeliberator.computeMaxMerit(
+                    this.amountOfGrades,
+                    this.amountOfJudges
+            );
+            this.tallies = tallies;
+        }
+
+        void setProposalResults(LazyProposalResult[] proposalResults) {
+            this.proposalResults = proposalResults;
+        }
+
+        /**
+         * Sums lock the poll, and then each proposal result in turn.  Proposal results MUST
+         * therefore never call these while holding their own lock.
+         */
+        synchronized BigInteger getSumOfMerits() {
+            if (null == this.sumOfMerits) {
+                BigInteger sum = BigInteger.ZERO;
+                for (LazyProposalResult proposalResult : this.proposalResults) {
+                    sum = sum.add(proposalResult.getMerit());
+                }
+                this.sumOfMerits = sum;
+            }
+            return this.sumOfMerits;
+        }
+
+        synchronized Double getSumOfAffineMerits() {
+            if (null == this.sumOfAffineMerits) {
+                double sum = 0.0; // in order, like deliberate() does
+                for (LazyProposalResult proposalResult : this.proposalResults) {
+                    sum += proposalResult.getAffineMerit();
+                }
+                this.sumOfAffineMerits = sum;
+            }
+            return this.sumOfAffineMerits;
+        }
+    }
+
+    private final Poll poll;
+
+    /**
+     * The walk of the gauge of this proposal, kept until everything it yields is memoized.
+     */
+    private MedianGaugeWalker walker;
+
+    /**
+     * @param walker of the ranking, if any, so that the gauge is only walked once
+     */
+    LazyProposalResult(Poll poll, Integer index, PackedScore packedScore, MedianGaugeWalker walker) {
+        this.poll = poll;
+        this.walker = walker;
+        setIndex(index);
+        setPackedScore(packedScore);
+        this.merit = null;
+        this.relativeMerit = null;
+        this.affineMerit = null;
+        this.relativeAffineMerit = null;
+    }
+
+    /**
+     * Callers must hold our lock.
+     */
+    private MedianGaugeWalker walk() {
+        if (null == this.walker) {
+            this.poll.resolve();
+            this.walker = new MedianGaugeWalker(this.poll.tallies[getIndex()], this.poll.favorContestation);
+        }
+        return this.walker;
+    }
+
+    /**
+     * Callers must hold our lock.
+     */
+    private void releaseWalker() {
+        if (null != this.packedScore && null != this.merit && null != this.analysis) {
+            this.walker = null;
+        }
+    }
+
+    /**
+     * Only null when the ranking did not need it, see RationalNormalizedTally.
+     */
+    @Override
+    public synchronized PackedScore getPackedScore() {
+        if (null == this.packedScore) {
+            setPackedScore(walk().computeScore(this.poll.amountOfJudges, this.poll.numerizeScore));
+            releaseWalker();
+        }
+        return this.packedScore;
+    }
+
+    @Override
+    public synchronized String getScore() {
+        getPackedScore();
+        return super.getScore();
+    }
+
+    @Override
+    public synchronized BigInteger getMerit() {
+        if (null == this.merit) {
+            this.merit = walk().computeMerit(this.poll.amountOfJudges);
+            releaseWalker();
+        }
+        return this.merit;
+    }
+
+    @Override
+    public Double getRelativeMerit() {
+        BigInteger sumOfMerits = this.poll.getSumOfMerits(); // NOT while holding our own lock
+        synchronized (this) {
+            if (null == this.relativeMerit) {
+                computeRelativeMerit(sumOfMerits);
+            }
+            return this.relativeMerit;
+        }
+    }
+
+    @Override
+    public synchronized Double getAffineMerit() {
+        if (null == this.affineMerit) {
+            this.poll.resolve();
+            this.affineMerit = MajorityJudgmentDeliberator.adjustMeritToAffine(
+                    getMerit(),
+                    this.poll.maxMerit,
+                    this.poll.amountOfJudges,
+                    this.poll.amountOfGrades
+            );
+        }
+        return this.affineMerit;
+    }
+
+    @Override
+    public Double getRelativeAffineMerit() {
+        Double sumOfAffineMerits = this.poll.getSumOfAffineMerits(); // NOT while holding our own lock
+        synchronized (this) {
+            if (null == this.relativeAffineMerit) {
+                computeRelativeAffineMerit(sumOfAffineMerits);
+            }
+            return this.relativeAffineMerit;
+        }
+    }
+
+    @Override
+    public synchronized ProposalTallyAnalysis getAnalysis() {
+        if (null == this.analysis) {
+            MedianGaugeWalker walker = walk(); // resolves the poll
+            this.analysis = walker.toAnalysis(this.poll.tallies[getIndex()]);
+            releaseWalker();
+        }
+        return this.analysis;
+    }
+}
@@ -0,0 +1,118 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+
+/**
+ * The primitive flavor of DefaultGradeProposalTally, over a LongProposalTallyInterface, so that
+ * the analysis and the deliberator keep running on primitives.
+ *
+ * <p>Grades are read straight from the base tally, and the missing amount is computed once, when
+ * the view is built: build the default grade tally again after collecting more judgments into a
+ * primitive base tally.  The base tally is never written into ; moving judgments detaches the
+ * view into its own copy of the filled tally.
+ */
+final class LongDefaultGradeProposalTally implements LongProposalTallyInterface {
+
+    private final LongProposalTallyInterface base;
+
+    private final int defaultGrade;
+
+    private final long amountOfJudges;
+
+    private final long missingAmount;
+
+    /**
+     * The filled tally, once moveJudgments() detached us from the base tally, or null.
+     */
+    private long[] detached;
+
+    LongDefaultGradeProposalTally(LongProposalTallyInterface base, int defaultGrade, long amountOfJudges) {
+        this.base = base;
+        this.defaultGrade = defaultGrade;
+        this.amountOfJudges = amountOfJudges;
+        this.missingAmount = Math.max(0L, amountOfJudges - sum(base));
+    }
+
+    @Override
+    public int countGrades() {
+        return (null != this.detached) ? this.detached.length : this.base.countGrades();
+    }
+
+    @Override
+    public long getLongTally(int grade) {
+        if (null != this.detached) {
+            return this.detached[grade];
+        }
+        long gradeTally = this.base.getLongTally(grade);
+        return (grade == this.defaultGrade) ? gradeTally + this.missingAmount : gradeTally;
+    }
+
+    @Override
+    public BigInteger[] getTally() {
+        int amountOfGrades = countGrades();
+        BigInteger[] bigTally = new BigInteger[amountOfGrades];
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            bigTally[grade] = BigInteger.valueOf(getLongTally(grade));
+        }
+        return bigTally;
+    }
+
+    @Override
+    public ProposalTallyInterface duplicate() {
+        return new LongProposalTally(toLongTally());
+    }
+
+    /**
+     * @throws ArithmeticException if the resulting tally of intoGrade overflows a long
+     */
+    @Override
+    public void moveJudgments(Integer fromGrade, Integer intoGrade) {
+        if (null == this.detached) {
+            this.detached = toLongTally();
+        }
+        if (fromGrade.equals(intoGrade)) {
+            return;
+        }
+        this.detached[intoGrade] = Math.addExact(this.detached[intoGrade], this.detached[fromGrade]);
+        this.detached[fromGrade] = 0L;
+    }
+
+    @Override
+    public BigInteger getAmountOfJudgments() {
+        if (null != this.detached) {
+            return new LongProposalTally(this.detached).getAmountOfJudgments();
+        }
+        return BigInteger.valueOf(this.amountOfJudges).max(this.base.getAmountOfJudgments());
+    }
+
+    /**
+     * @throws ArithmeticException if the base tally's sum overflows a long
+     */
+    @Override
+    public long getLongAmountOfJudgments() {
+        if (null != this.detached) {
+            return new LongProposalTally(this.detached).getLongAmountOfJudgments();
+        }
+        return Math.max(this.amountOfJudges, this.base.getLongAmountOfJudgments());
+    }
+
+    private long[] toLongTally() {
+        long[] tally = new long[countGrades()];
+        for (int grade = 0; grade < tally.length; grade++) {
+            tally[grade] = getLongTally(grade);
+        }
+        return tally;
+    }
+
+    /**
+     * @return the sum, or Long.MAX_VALUE when it overflows, since there are then more judgments
+     *         than any amount of judges, and none is missing
+     */
+    private static long sum(LongProposalTallyInterface tally) {
+        try {
+            return tally.getLongAmountOfJudgments();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A ProposalTally backed by primitive longs instead of BigIntegers.
+ *
+ * <p>Most polls hold far fewer than 2^63 judgments, and BigInteger arithmetic is then pure
+ * overhead. The analysis and the deliberator detect this implementation and run on primitives,
+ * falling back to the BigInteger path only when an addition or a multiplication would overflow.
+ */
+public class LongProposalTally implements LongProposalTallyInterface {
+
+    /**
+     * Amounts of judgments received per grade, from "worst" grade to "best" grade.
+     */
+    protected long[] tally;
+
+    public LongProposalTally() {
+    }
+
+    public LongProposalTally(long[] tally) {
+        setTally(tally);
+    }
+
+    public LongProposalTally(Integer[] tally) {
+        setTally(tally);
+    }
+
+    public LongProposalTally(Long[] tally) {
+        setTally(tally);
+    }
+
+    /**
+     * @throws ArithmeticException when a grade's tally does not fit in a long
+     */
+    public LongProposalTally(ProposalTallyInterface proposalTally) {
+        BigInteger[] bigTally = proposalTally.getTally();
+        int tallyLength = bigTally.length;
+        long[] longTally = new long[tallyLength];
+        for (int i = 0; i < tallyLength; i++) {
+            longTally[i] = bigTally[i].longValueExact();
+        }
+        setTally(longTally);
+    }
+
+    public void setTally(long[] tally) {
+        this.tally = tally;
+    }
+
+    public void setTally(Integer[] tally) {
+        int tallyLength = tally.length;
+        long[] longTally = new long[tallyLength];
+        for (int i = 0; i < tallyLength; i++) {
+            longTally[i] = tally[i];
+        }
+        setTally(longTally);
+    }
+
+    public void setTally(Long[] tally) {
+        int tallyLength = tally.length;
+        long[] longTally = new long[tallyLength];
+        for (int i = 0; i < tallyLength; i++) {
+            longTally[i] = tally[i];
+        }
+        setTally(longTally);
+    }
+
+    /**
+     * The raw primitive tally. Writes into this array ARE reflected in this proposal tally.
+     */
+    public long[] getLongTally() {
+        return this.tally;
+    }
+
+    @Override
+    public int countGrades() {
+        return this.tally.length;
+    }
+
+    @Override
+    public long getLongTally(int grade) {
+        return this.tally[grade];
+    }
+
+    /**
+     * Allocates a fresh array of BigIntegers ; prefer getLongTally() whenever you can.
+     * Writes into the returned array are NOT reflected in this proposal tally.
+     */
+    @Override
+    public BigInteger[] getTally() {
+        int tallyLength = this.tally.length;
+        BigInteger[] bigTally = new BigInteger[tallyLength];
+        for (int i = 0; i < tallyLength; i++) {
+            bigTally[i] = BigInteger.valueOf(this.tally[i]);
+        }
+        return bigTally;
+    }
+
+    @Override
+    public ProposalTallyInterface duplicate() {
+        return new LongProposalTally(Arrays.copyOf(this.tally, this.tally.length));
+    }
+
+    /**
+     * @throws ArithmeticException if the resulting tally of intoGrade overflows a long
+     */
+    @Override
+    public void moveJudgments(Integer fromGrade, Integer intoGrade) {
+        if (fromGrade.equals(intoGrade)) {
+            return;
+        }
+        this.tally[intoGrade] = Math.addExact(this.tally[intoGrade], this.tally[fromGrade]);
+        this.tally[fromGrade] = 0L;
+    }
+
+    @Override
+    public BigInteger getAmountOfJudgments() {
+        try {
+            return BigInteger.valueOf(getLongAmountOfJudgments());
+        } catch (ArithmeticException e) {
+            BigInteger sum = BigInteger.ZERO;
+            for (long gradeTally : this.tally) {
+                sum = sum.add(BigInteger.valueOf(gradeTally));
+            }
+            return sum;
+        }
+    }
+
+    @Override
+    public long getLongAmountOfJudgments() {
+        long sum = 0L;
+        for (long gradeTally : this.tally) {
+            sum = Math.addExact(sum, gradeTally);
+        }
+        return sum;
+    }
+}
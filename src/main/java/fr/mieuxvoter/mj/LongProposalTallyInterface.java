@@ -0,0 +1,23 @@
+package fr.mieuxvoter.mj;
+
+/**
+ * A proposal tally that can be read as primitive longs, grade by grade, without allocating.
+ *
+ * <p>The analysis and the deliberator detect this interface and run on primitives.  It only
+ * reads: LongProposalTally holds its own array, and the default grade views compute theirs.
+ */
+public interface LongProposalTallyInterface extends ProposalTallyInterface {
+
+    int countGrades();
+
+    /**
+     * @return the amount of judgments received by this grade
+     */
+    long getLongTally(int grade);
+
+    /**
+     * @return The total amount of judgments received by this proposal.
+     * @throws ArithmeticException if the sum overflows a long
+     */
+    long getLongAmountOfJudgments();
+}
@@ -0,0 +1,73 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+
+/**
+ * A TallyInterface implementation holding LongProposalTallies, for polls whose amounts of
+ * judgments fit in primitive longs. The deliberator then skips BigInteger arithmetic entirely,
+ * unless something overflows along the way.
+ */
+public class LongTally implements TallyInterface {
+
+    protected LongProposalTally[] proposalsTallies;
+
+    protected long amountOfJudges = 0L;
+
+    public LongTally(LongProposalTally[] proposalsTallies) {
+        setProposalsTallies(proposalsTallies);
+        guessAmountOfJudges();
+    }
+
+    public LongTally(LongProposalTally[] proposalsTallies, long amountOfJudges) {
+        setProposalsTallies(proposalsTallies);
+        setAmountOfJudges(amountOfJudges);
+    }
+
+    /**
+     * @param tallies one array of amounts of judgments per proposal, from "worst" to "best" grade
+     */
+    public LongTally(long[][] tallies, long amountOfJudges) {
+        int amountOfProposals = tallies.length;
+        LongProposalTally[] proposalsTallies = new LongProposalTally[amountOfProposals];
+        for (int i = 0; i < amountOfProposals; i++) {
+            proposalsTallies[i] = new LongProposalTally(tallies[i]);
+        }
+        setProposalsTallies(proposalsTallies);
+        setAmountOfJudges(amountOfJudges);
+    }
+
+    @Override
+    public LongProposalTally[] getProposalsTallies() {
+        return proposalsTallies;
+    }
+
+    public void setProposalsTallies(LongProposalTally[] proposalsTallies) {
+        this.proposalsTallies = proposalsTallies;
+    }
+
+    @Override
+    public Integer getAmountOfProposals() {
+        return proposalsTallies.length;
+    }
+
+    @Override
+    public BigInteger getAmountOfJudges() {
+        return BigInteger.valueOf(amountOfJudges);
+    }
+
+    public long getLongAmountOfJudges() {
+        return amountOfJudges;
+    }
+
+    public void setAmountOfJudges(long amountOfJudges) {
+        this.amountOfJudges = amountOfJudges;
+    }
+
+    protected void guessAmountOfJudges() {
+        long guessedAmount = 0L;
+        for (LongProposalTally proposalTally : getProposalsTallies()) {
+            guessedAmount = Math.max(guessedAmount, proposalTally.getLongAmountOfJudgments());
+        }
+        setAmountOfJudges(guessedAmount);
+    }
+}
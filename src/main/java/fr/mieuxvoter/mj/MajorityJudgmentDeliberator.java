@@ -5,6 +5,10 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Deliberate (rank proposals) using Majority Judgment.
@@ -13,9 +17,21 @@ import java.util.Comparator;
  * reason to the largest group of people that did not give the median Grade.
  *
  * <p>This algorithm is score-based, for performance (and possible parallelization). Each Proposal
- * gets a score, higher (lexicographically) is "better" (depends on the meaning of the Grades). We
- * use Strings instead of Integers or raw Bits for the score. Improve if you feel like it and can
- * benchmark things.
+ * gets a score, higher (lexicographically) is "better" (depends on the meaning of the Grades). The
+ * score is packed into fixed-width words (see PackedScore) and compared as unsigned longs. The
+ * legacy String score is only rendered when someone asks for it.
+ *
+ * <p>Scores and merits are derived from a single outward walk of each proposal's median gauge
+ * (see MedianGaugeWalker), which runs on primitive longs whenever the amounts of judgments fit,
+ * and only falls back to BigIntegers when an addition or a multiplication would overflow.
+ *
+ * <p>Give it a ForkJoinPool and the per-proposal steps run on that pool, while the ranking uses
+ * Arrays.parallelSort once there are enough proposals to make it worthwhile.  The results are the
+ * same, whatever the pool.
+ *
+ * <p>Give it a DeliberationListenerInterface to find out how long each phase of deliberate() takes.
+ * Deliberations are also recorded by the Java Flight Recorder, as fr.mieuxvoter.mj.Deliberation
+ * events.
  *
  * <p><a href="https://en.wikipedia.org/wiki/Majority_judgment">More about Majority Judgment</a>
  */
@@ -24,6 +40,26 @@ public final class MajorityJudgmentDeliberator implements DeliberatorInterface {
     private boolean favorContestation = true;
     private boolean numerizeScore = false;
 
+    /**
+     * Below this amount of proposals, sorting in parallel costs more than it saves.
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Stateless, and caches what it can across polls.
+     */
+    private static final MeritToAbsoluteRankModel MERIT_TO_ABSOLUTE_RANK_MODEL = new MeritToAbsoluteRankModel();
+
+    /**
+     * When null (the default), deliberation runs on the calling thread.
+     */
+    private ForkJoinPool pool = null;
+
+    /**
+     * When null (the default), deliberation measures nothing.
+     */
+    private DeliberationListenerInterface listener = null;
+
     public MajorityJudgmentDeliberator() {
     }
 
@@ -36,290 +72,550 @@ public final class MajorityJudgmentDeliberator implements DeliberatorInterface {
         this.numerizeScore = numerizeScore;
     }
 
+    /**
+     * @param pool on which to compute the scores, merits and ranking of the proposals
+     */
+    public MajorityJudgmentDeliberator(boolean favorContestation, boolean numerizeScore, ForkJoinPool pool) {
+        this.favorContestation = favorContestation;
+        this.numerizeScore = numerizeScore;
+        this.pool = pool;
+    }
+
+    /**
+     * @param listener told about the duration of each phase of deliberate(), or null
+     */
+    public void setListener(DeliberationListenerInterface listener) {
+        this.listener = listener;
+    }
+
     @Override
     public ResultInterface deliberate(TallyInterface tally) throws InvalidTallyException {
-        checkTally(tally);
+        DeliberationProbe probe = DeliberationProbe.start(this.listener);
+
+        if (tally instanceof RationalNormalizedTally) {
+            return deliberateRationally((RationalNormalizedTally) tally, probe);
+        }
 
+        // Read the tally once, so that we validate what we score
+        tally = ConcurrentCollectedTally.snapshotOf(tally);
         ProposalTallyInterface[] tallies = tally.getProposalsTallies();
         BigInteger amountOfJudges = tally.getAmountOfJudges();
         Integer amountOfProposals = tally.getAmountOfProposals();
 
+        checkTally(tallies, amountOfJudges);
+        probe.lap(DeliberationListenerInterface.Phase.VALIDATION, amountOfProposals);
+
         Result result = new Result();
         ProposalResult[] proposalResults = new ProposalResult[amountOfProposals];
 
-        // I. Compute the score and merit of each Proposal
-        for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
+        // I. Compute the score, merit and analysis of each Proposal, in a single walk
+        forEachProposal(amountOfProposals, proposalIndex -> {
             ProposalTallyInterface proposalTally = tallies[proposalIndex];
-            String score = computeScore(proposalTally, amountOfJudges);
-            ProposalTallyAnalysis analysis = new ProposalTallyAnalysis(
-                    proposalTally, this.favorContestation
-            );
+            MedianGaugeWalker walker = new MedianGaugeWalker(proposalTally, this.favorContestation);
 
             ProposalResult proposalResult = new ProposalResult();
             proposalResult.setIndex(proposalIndex);
-            proposalResult.setScore(score);
-            proposalResult.setAnalysis(analysis);
+            proposalResult.setPackedScore(walker.computeScore(amountOfJudges, this.numerizeScore));
+            proposalResult.setMerit(walker.computeMerit(amountOfJudges));
+            proposalResult.setAnalysis(walker.toAnalysis(proposalTally));
             // proposalResult.setRank(???); // rank is computed below, AFTER the score pass
 
             proposalResults[proposalIndex] = proposalResult;
-        }
+            probe.countWalk(walker);
+        });
+        probe.lap(DeliberationListenerInterface.Phase.SCORING, amountOfProposals);
 
         // II. Sort Proposals by score (lexicographical inverse)
         ProposalResult[] proposalResultsSorted = proposalResults.clone(); // MUST be shallow
-        Arrays.sort(
-                proposalResultsSorted,
-                (Comparator<ProposalResultInterface>) (p0, p1) -> p1.getScore().compareTo(p0.getScore())
-        );
+        sortByScore(proposalResultsSorted);
+        probe.lap(DeliberationListenerInterface.Phase.SORTING, amountOfProposals);
 
         // III. Attribute a rank to each Proposal
-        int rank = 1;
-        for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
-            ProposalResult proposalResult = proposalResultsSorted[proposalIndex];
-            Integer actualRank = rank;
-            if (proposalIndex > 0) {
-                ProposalResult proposalResultBefore = proposalResultsSorted[proposalIndex - 1];
-                if (proposalResult.getScore().contentEquals(proposalResultBefore.getScore())) {
-                    actualRank = proposalResultBefore.getRank();
-                }
-            }
-            proposalResult.setRank(actualRank);
-            rank += 1;
-        }
+        attributeRanks(proposalResultsSorted);
+        probe.lap(DeliberationListenerInterface.Phase.RANKING, amountOfProposals);
 
         // Steps IV, V and VI are not required to rank the proposals, but they're nice to have around.
 
-        // IV. Compute the scalar "merit from MJ-Score" of each Proposal
-        BigInteger sumOfMerits = BigInteger.ZERO;
-        for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
-            ProposalTallyInterface proposalTally = tallies[proposalIndex];
-            ProposalResult proposalResult = proposalResults[proposalIndex];
-
-            BigInteger merit = computeMerit(proposalTally, amountOfJudges, this.favorContestation);
-
-            proposalResult.setMerit(merit);
-            sumOfMerits = sumOfMerits.add(merit);
-        }
+        // IV. Sum the scalar "merit from MJ-Score" of each Proposal, computed in step I
+        BigInteger sumOfMerits = sumMerits(proposalResults);
+        probe.lap(DeliberationListenerInterface.Phase.MERIT, amountOfProposals);
 
         // V.a Compute the (maximum!) merit a 100% EXCELLENT proposal would get
-        BigInteger maxMerit = BigInteger.ONE;
-        if (tallies.length > 0) {
-            int amountOfGrades = tallies[0].getTally().length;
-            BigInteger[] bestTally = new BigInteger[amountOfGrades];
-            Arrays.fill(bestTally, BigInteger.ZERO);
-            bestTally[bestTally.length - 1] = amountOfJudges;
-            maxMerit = computeMerit(new ProposalTally(bestTally), amountOfJudges, this.favorContestation);
-        }
+        BigInteger maxMerit = (tallies.length > 0)
+                ? computeMaxMerit(countGrades(tallies[0]), amountOfJudges)
+                : BigInteger.ONE;
 
         // V.b Approximate the scalar "merit from absolute rank" of each Proposal (Affine Merit)
-        double sumOfAffineMerits = 0.0;
         if (tallies.length > 0) {
-            for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
+            int amountOfGrades = countGrades(tallies[0]);
+            forEachProposal(amountOfProposals, proposalIndex -> {
                 ProposalResult proposalResult = proposalResults[proposalIndex];
-                int amountOfGrades = tallies[0].getTally().length;
-
-                Double affineMerit = adjustMeritToAffine(
+                proposalResult.setAffineMerit(adjustMeritToAffine(
                         proposalResult.getMerit(),
                         maxMerit,
                         amountOfJudges,
                         amountOfGrades
-                );
-
-                proposalResult.setAffineMerit(affineMerit);
-                sumOfAffineMerits += affineMerit;
-            }
+                ));
+            });
         }
+        double sumOfAffineMerits = sumAffineMerits(proposalResults);
+        probe.lap(DeliberationListenerInterface.Phase.AFFINE_MERIT, amountOfProposals);
 
         // VI. Compute the relative merit(s) of each Proposal
-        for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
-            ProposalResult proposalResult = proposalResultsSorted[proposalIndex];
+        forEachProposal(amountOfProposals, proposalIndex -> {
+            ProposalResult proposalResult = proposalResults[proposalIndex];
             proposalResult.computeRelativeMerit(sumOfMerits);
             proposalResult.computeRelativeAffineMerit(sumOfAffineMerits);
-        }
+        });
+        probe.lap(DeliberationListenerInterface.Phase.RELATIVE_MERIT, amountOfProposals);
 
         // VII. All done, let's output
         result.setProposalResults(proposalResults);
         result.setProposalResultsRanked(proposalResultsSorted);
+        probe.finish(amountOfProposals, (tallies.length > 0) ? countGrades(tallies[0]) : 0, amountOfJudges);
 
         return result;
     }
 
-    private void checkTally(TallyInterface tally) throws UnbalancedTallyException {
-        if (!isTallyCoherent(tally)) {
-            throw new IncoherentTallyException();
+    /**
+     * Deliberate, but only for the K "best" proposals, like a podium.
+     *
+     * <p>Every proposal is scored, but only the winners are sorted, and only the winners get a
+     * merit, an affine merit and an analysis.  Proposals tied with the K-th one are winners too,
+     * so that no arbitrary cut happens at the boundary, and there may be more than K winners.
+     * Ranks are the same as the ones deliberate() would give.
+     *
+     * <p>Both the proposal results and the ranked proposal results only hold the winners.
+     * Relative merits need the merits of all the proposals, and are therefore left at zero.
+     *
+     * @param k Amount of "best" proposals we want, at least 1
+     */
+    public ResultInterface deliberateTopK(TallyInterface tally, int k) throws InvalidTallyException {
+        if (k < 1) {
+            throw new IllegalArgumentException("We need to want at least one proposal, got " + k);
         }
-        if (!isTallyBalanced(tally)) {
-            throw new UnbalancedTallyException();
+
+        tally = ConcurrentCollectedTally.snapshotOf(tally);
+        ProposalTallyInterface[] tallies = tally.getProposalsTallies();
+        BigInteger amountOfJudges = tally.getAmountOfJudges();
+        Integer amountOfProposals = tally.getAmountOfProposals();
+
+        checkTally(tallies, amountOfJudges);
+
+        // I. Compute the score of each Proposal
+        PackedScore[] scores = new PackedScore[amountOfProposals];
+        forEachProposal(amountOfProposals, proposalIndex -> {
+            MedianGaugeWalker walker = new MedianGaugeWalker(tallies[proposalIndex], this.favorContestation);
+            scores[proposalIndex] = walker.computeScore(amountOfJudges, this.numerizeScore);
+        });
+
+        // II. Select the K best scores with a bounded heap, whose head is the "worst" of them
+        Comparator<Integer> worstFirst = (i0, i1) -> {
+            int comparison = scores[i0].compareTo(scores[i1]);
+            return (0 != comparison) ? comparison : Integer.compare(i1, i0);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, Math.min(k, amountOfProposals)), worstFirst);
+        for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
+            if (heap.size() < k) {
+                heap.add(proposalIndex);
+            } else if (worstFirst.compare(proposalIndex, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(proposalIndex);
+            }
         }
-    }
 
-    private boolean isTallyCoherent(TallyInterface tally) {
-        for (ProposalTallyInterface proposalTally : tally.getProposalsTallies()) {
-            for (BigInteger gradeTally : proposalTally.getTally()) {
-                if (0 > gradeTally.compareTo(BigInteger.ZERO)) {
-                    return false; // negative tallies are not coherent
+        // III. Also keep the proposals tied with the K-th one
+        int amountOfWinners = 0;
+        ProposalResult[] proposalResults = new ProposalResult[0];
+        if (!heap.isEmpty()) {
+            PackedScore lowestWinningScore = scores[heap.peek()];
+            int[] winners = new int[amountOfProposals];
+            for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
+                if (0 <= scores[proposalIndex].compareTo(lowestWinningScore)) {
+                    winners[amountOfWinners++] = proposalIndex;
                 }
             }
-        }
 
-        return true;
-    }
+            proposalResults = new ProposalResult[amountOfWinners];
+            for (int w = 0; w < amountOfWinners; w++) {
+                ProposalResult proposalResult = new ProposalResult();
+                proposalResult.setIndex(winners[w]);
+                proposalResult.setPackedScore(scores[winners[w]]);
+                proposalResults[w] = proposalResult;
+            }
+        }
 
-    private boolean isTallyBalanced(TallyInterface tally) {
-        BigInteger amountOfJudges = BigInteger.ZERO;
-        boolean firstProposal = true;
-        for (ProposalTallyInterface proposalTally : tally.getProposalsTallies()) {
-            if (firstProposal) {
-                amountOfJudges = proposalTally.getAmountOfJudgments();
-                firstProposal = false;
-            } else {
-                if (0 != amountOfJudges.compareTo(proposalTally.getAmountOfJudgments())) {
-                    return false;
-                }
+        // IV. Sort and rank the winners, exactly like deliberate() does
+        ProposalResult[] proposalResultsSorted = proposalResults.clone(); // MUST be shallow
+        sortByScore(proposalResultsSorted);
+        attributeRanks(proposalResultsSorted);
+
+        // V. Compute the merit, affine merit and analysis of the winners only
+        if (0 < amountOfWinners) {
+            int amountOfGrades = countGrades(tallies[0]);
+            BigInteger maxMerit = computeMaxMerit(amountOfGrades, amountOfJudges);
+            for (ProposalResult proposalResult : proposalResults) {
+                ProposalTallyInterface proposalTally = tallies[proposalResult.getIndex()];
+                MedianGaugeWalker walker = new MedianGaugeWalker(proposalTally, this.favorContestation);
+                proposalResult.setMerit(walker.computeMerit(amountOfJudges));
+                proposalResult.setAnalysis(walker.toAnalysis(proposalTally));
+                proposalResult.setAffineMerit(adjustMeritToAffine(
+                        proposalResult.getMerit(),
+                        maxMerit,
+                        amountOfJudges,
+                        amountOfGrades
+                ));
             }
         }
 
-        return true;
+        Result result = new Result();
+        result.setProposalResults(proposalResults);
+        result.setProposalResultsRanked(proposalResultsSorted);
+
+        return result;
     }
 
     /**
-     * @see this#computeScore(ProposalTallyInterface, BigInteger, Boolean, Boolean) below
+     * Deliberate, but only compute what the ranking requires: the scores.
+     *
+     * <p>Merits, affine merits, relative merits and analyses are computed on the first call to
+     * their getter, and memoized.  See LazyProposalResult.  Callers that only need the ranks
+     * therefore only pay for the ranking.
      */
-    private String computeScore(
-            ProposalTallyInterface tally,
-            BigInteger amountOfJudges
-    ) {
-        return computeScore(
-                tally,
+    public ResultInterface deliberateLazily(TallyInterface tally) throws InvalidTallyException {
+        tally = ConcurrentCollectedTally.snapshotOf(tally);
+        ProposalTallyInterface[] tallies = tally.getProposalsTallies();
+        BigInteger amountOfJudges = tally.getAmountOfJudges();
+        Integer amountOfProposals = tally.getAmountOfProposals();
+
+        checkTally(tallies, amountOfJudges);
+
+        LazyProposalResult.Poll poll = new LazyProposalResult.Poll(
+                tallies,
                 amountOfJudges,
                 this.favorContestation,
                 this.numerizeScore
         );
+        LazyProposalResult[] proposalResults = new LazyProposalResult[amountOfProposals];
+
+        // I. Compute the score of each Proposal, and nothing else
+        forEachProposal(amountOfProposals, proposalIndex -> {
+            MedianGaugeWalker walker = new MedianGaugeWalker(tallies[proposalIndex], this.favorContestation);
+            proposalResults[proposalIndex] = new LazyProposalResult(
+                    poll,
+                    proposalIndex,
+                    walker.computeScore(amountOfJudges, this.numerizeScore),
+                    walker
+            );
+        });
+        poll.setProposalResults(proposalResults);
+
+        // II. and III. Sort and rank, exactly like deliberate() does
+        ProposalResult[] proposalResultsSorted = proposalResults.clone(); // MUST be shallow
+        sortByScore(proposalResultsSorted);
+        attributeRanks(proposalResultsSorted);
+
+        Result result = new Result();
+        result.setProposalResults(proposalResults);
+        result.setProposalResultsRanked(proposalResultsSorted);
+
+        return result;
     }
 
     /**
-     * A higher score means a better rank. Assumes that grades' tallies are provided from "worst"
-     * grade to "best" grade.  This score is fast to compute but is not meaningful.
-     * For a meaningful scalar value, see this#computeMerit().
+     * Ranks the proposals as if their tallies were normalized, without computing the least common
+     * multiple of their amounts of judgments: each proposal is walked on its own tally, and the
+     * walks are compared as exact fractions (see MedianGaugeWalker.compareNormalizedScore()).
      *
-     * @param tally             Holds the tallies of each Grade for a single Proposal
-     * @param amountOfJudges    Amount of judges participating
-     * @param favorContestation Use the lower median when dealing with an even amount of judgments.
-     * @param onlyNumbers       Do not use separation characters for the score, ie match `^[0-9]+$`
-     * @return the score of the proposal, also known as median gauge.
+     * <p>Ranks are the same as the ones of a NormalizedTally.  Everything else is computed on
+     * demand, like deliberateLazily() does, and will normalize the tally then.  The listener
+     * therefore only hears of the phases up to the ranking.
      */
-    private String computeScore(
-            ProposalTallyInterface tally,
-            BigInteger amountOfJudges,
-            Boolean favorContestation,
-            Boolean onlyNumbers
-    ) {
-        ProposalTallyAnalysis analysis = new ProposalTallyAnalysis();
-        int amountOfGrades = tally.getTally().length;
-        int digitsForGrade = countDigits(amountOfGrades);
-        int digitsForGroup = countDigits(amountOfJudges) + 1;
-
-        ProposalTallyInterface currentTally = tally.duplicate();
+    private ResultInterface deliberateRationally(RationalNormalizedTally tally, DeliberationProbe probe) {
+        ProposalTallyInterface[] tallies = tally.getRawProposalsTallies();
+        int amountOfProposals = tallies.length;
 
-        StringBuilder score = new StringBuilder();
-        for (int i = 0; i < amountOfGrades; i++) {
+        // Raw tallies are unbalanced on purpose, but must be coherent
+        checkGrades(tallies);
+        if (!isTallyCoherent(tallies)) {
+            throw new IncoherentTallyException();
+        }
+        probe.lap(DeliberationListenerInterface.Phase.VALIDATION, amountOfProposals);
 
-            analysis.reanalyze(currentTally, favorContestation);
+        LazyProposalResult.Poll poll = new LazyProposalResult.Poll(
+                tally,
+                this.favorContestation,
+                this.numerizeScore
+        );
+        LazyProposalResult[] proposalResults = new LazyProposalResult[amountOfProposals];
+
+        // I. Walk each Proposal on its own tally
+        MedianGaugeWalker[] walkers = new MedianGaugeWalker[amountOfProposals];
+        forEachProposal(amountOfProposals, proposalIndex -> {
+            walkers[proposalIndex] = new MedianGaugeWalker(tallies[proposalIndex], this.favorContestation);
+            proposalResults[proposalIndex] = new LazyProposalResult(poll, proposalIndex, null, null);
+            probe.countWalk(walkers[proposalIndex]);
+        });
+        poll.setProposalResults(proposalResults);
+        probe.lap(DeliberationListenerInterface.Phase.SCORING, amountOfProposals);
+
+        // II. Sort the walks, "best" first, ties keeping the order of the proposals
+        Comparator<ProposalResult> bestFirst = (p0, p1) -> walkers[p1.getIndex()].compareNormalizedScore(
+                walkers[p0.getIndex()]
+        );
+        ProposalResult[] proposalResultsSorted = proposalResults.clone(); // MUST be shallow
+        if (null == this.pool || amountOfProposals < PARALLEL_SORT_THRESHOLD) {
+            Arrays.sort(proposalResultsSorted, bestFirst);
+        } else {
+            this.pool.submit(() -> Arrays.parallelSort(proposalResultsSorted, bestFirst)).join();
+        }
+        probe.lap(DeliberationListenerInterface.Phase.SORTING, amountOfProposals);
 
-            if (0 < i && onlyNumbers.equals(Boolean.FALSE)) {
-                score.append("/");
+        // III. Attribute ranks, sharing them between equal walks
+        for (int position = 0; position < amountOfProposals; position++) {
+            ProposalResult proposalResult = proposalResultsSorted[position];
+            if (0 < position && 0 == bestFirst.compare(proposalResultsSorted[position - 1], proposalResult)) {
+                proposalResult.setRank(proposalResultsSorted[position - 1].getRank());
+            } else {
+                proposalResult.setRank(position + 1);
             }
+        }
+        probe.lap(DeliberationListenerInterface.Phase.RANKING, amountOfProposals);
 
-            score.append(String.format(
-                    String.format("%%0%dd", digitsForGrade),
-                    analysis.getMedianGrade()
-            ));
+        Result result = new Result();
+        result.setProposalResults(proposalResults);
+        result.setProposalResultsRanked(proposalResultsSorted);
+        probe.finish(amountOfProposals, (amountOfProposals > 0) ? countGrades(tallies[0]) : 0, null);
+
+        return result;
+    }
+
+    /**
+     * Proposals sharing the same score share the same rank.
+     *
+     * @param proposalResultsSorted sorted by score, "best" first
+     */
+    static void attributeRanks(ProposalResult[] proposalResultsSorted) {
+        int rank = 1;
+        for (int proposalIndex = 0; proposalIndex < proposalResultsSorted.length; proposalIndex++) {
+            ProposalResult proposalResult = proposalResultsSorted[proposalIndex];
+            Integer actualRank = rank;
+            if (proposalIndex > 0) {
+                ProposalResult proposalResultBefore = proposalResultsSorted[proposalIndex - 1];
+                if (proposalResult.getPackedScore().equals(proposalResultBefore.getPackedScore())) {
+                    actualRank = proposalResultBefore.getRank();
+                }
+            }
+            proposalResult.setRank(actualRank);
+            rank += 1;
+        }
+    }
 
-            if (onlyNumbers.equals(Boolean.FALSE)) {
-                score.append("_");
+    /**
+     * Runs the action for each proposal index, on the pool if we have one.
+     * Actions MUST only write into the slots of their own proposal.
+     */
+    private void forEachProposal(int amountOfProposals, IntConsumer action) {
+        if (null == this.pool || amountOfProposals < 2) {
+            for (int proposalIndex = 0; proposalIndex < amountOfProposals; proposalIndex++) {
+                action.accept(proposalIndex);
             }
+            return;
+        }
 
-            score.append(String.format(
-                    String.format("%%0%dd", digitsForGroup),
-                    // amountOfJudges + secondMedianGroupSize * secondMedianGroupSign
-                    analysis.getSecondMedianGroupSize()
-                            .multiply(
-                                    BigInteger.valueOf(
-                                            analysis.getSecondMedianGroupSign()
-                                    )
-                            )
-                            // We offset by amountOfJudges to keep a lexicographical order,
-                            // which would be broken by any negative number here.
-                            .add(amountOfJudges)
-            ));
-
-            currentTally.moveJudgments(analysis.getMedianGrade(), analysis.getSecondMedianGrade());
+        // A parallel stream started from within a pool's task runs on that pool
+        this.pool.submit(() -> IntStream.range(0, amountOfProposals).parallel().forEach(action)).join();
+    }
+
+    private BigInteger sumMerits(ProposalResult[] proposalResults) {
+        if (null == this.pool) {
+            BigInteger sumOfMerits = BigInteger.ZERO;
+            for (ProposalResult proposalResult : proposalResults) {
+                sumOfMerits = sumOfMerits.add(proposalResult.getMerit());
+            }
+            return sumOfMerits;
         }
 
-        return score.toString();
+        return this.pool.submit(() -> Arrays.stream(proposalResults)
+                .parallel()
+                .map(ProposalResult::getMerit)
+                .reduce(BigInteger.ZERO, BigInteger::add)
+        ).join();
     }
 
     /**
-     * This method is not used in ranking, but helps compute a scalar merit for a given merit profile.
-     * Such a scalar merit is handy for deriving a proportional representation for example.
-     * This merit is isomorphic with MJ ranking and could be used for ranking. (bigger is better)
-     * Marc Paraire calls this merit the "MJ-Score".
-     * As you can see, this algorithm is quite similar to the string score one.
-     * The main difference is that it's a little slower to compute, but the output value is more meaningful.
+     * Summed sequentially, in order, so that the floating-point sum does not depend on the pool.
      */
-    private BigInteger computeMerit(
-            ProposalTallyInterface tally,
-            BigInteger amountOfJudges,
-            Boolean favorContestation
-    ) {
-        ProposalTallyAnalysis analysis = new ProposalTallyAnalysis();
-        analysis.reanalyze(tally, favorContestation);
+    private double sumAffineMerits(ProposalResult[] proposalResults) {
+        double sumOfAffineMerits = 0.0;
+        for (ProposalResult proposalResult : proposalResults) {
+            sumOfAffineMerits += proposalResult.getAffineMerit();
+        }
+        return sumOfAffineMerits;
+    }
 
-        int amountOfGrades = tally.getTally().length;
+    /**
+     * Sorts by score, "best" first.  Both sorts are stable, so ties keep their input order.
+     */
+    private void sortByScore(ProposalResult[] proposalResults) {
+        Comparator<ProposalResult> byScoreDescending = (p0, p1) -> (
+                p1.getPackedScore().compareTo(p0.getPackedScore())
+        );
 
-        ProposalTallyInterface currentTally = tally.duplicate();
+        if (null == this.pool || proposalResults.length < PARALLEL_SORT_THRESHOLD) {
+            Arrays.sort(proposalResults, byScoreDescending);
+        } else {
+            // parallelSort forks its tasks into the pool of the current worker thread
+            this.pool.submit(() -> Arrays.parallelSort(proposalResults, byScoreDescending)).join();
+        }
+    }
 
-        BigInteger merit = BigInteger.valueOf(analysis.getMedianGrade());
-        Integer cursorGrade = analysis.getMedianGrade();
-        Integer minProcessedGrade = cursorGrade;
-        Integer maxProcessedGrade = cursorGrade;
+    private void checkTally(
+            ProposalTallyInterface[] tallies,
+            BigInteger amountOfJudges
+    ) throws UnbalancedTallyException {
+        checkGrades(tallies);
+        if (isTallyPrimitive(tallies, amountOfJudges)) {
+            checkPrimitiveTally(tallies);
+        } else {
+            checkBigTally(tallies);
+        }
+    }
 
-        for (int i = 0; i < amountOfGrades - 1; i++) {
+    private void checkBigTally(ProposalTallyInterface[] tallies) throws UnbalancedTallyException {
+        if (!isTallyCoherent(tallies)) {
+            throw new IncoherentTallyException();
+        }
+        if (!isTallyBalanced(tallies)) {
+            throw new UnbalancedTallyException();
+        }
+    }
 
-            merit = merit.multiply(amountOfJudges);
+    /**
+     * The primitive path requires LongProposalTallyInterfaces, and an amount of judges small enough
+     * for the score offsets (up to twice the amount of judges) to fit in a long.
+     */
+    private boolean isTallyPrimitive(ProposalTallyInterface[] tallies, BigInteger amountOfJudges) {
+        if (amountOfJudges.bitLength() > 62) {
+            return false;
+        }
+        for (ProposalTallyInterface proposalTally : tallies) {
+            if (!(proposalTally instanceof LongProposalTallyInterface)) {
+                return false;
+            }
+        }
 
-            if (analysis.getSecondMedianGroupSize().compareTo(BigInteger.ZERO) == 0) {
-                continue;
+        return true;
+    }
+
+    /**
+     * Same as checkBigTally(), without allocating BigIntegers.
+     */
+    private void checkPrimitiveTally(ProposalTallyInterface[] tallies) throws UnbalancedTallyException {
+        for (ProposalTallyInterface proposalTally : tallies) {
+            if (!isLongTallyCoherent((LongProposalTallyInterface) proposalTally)) {
+                throw new IncoherentTallyException();
             }
+        }
 
-            if (analysis.getSecondMedianGroupSign() > 0) {
-                cursorGrade = maxProcessedGrade + 1;
-                maxProcessedGrade = cursorGrade;
-            } else {
-                cursorGrade = minProcessedGrade - 1;
-                minProcessedGrade = cursorGrade;
+        long amountOfJudges = 0L;
+        boolean firstProposal = true;
+        for (ProposalTallyInterface proposalTally : tallies) {
+            long amountOfJudgments;
+            try {
+                amountOfJudgments = ((LongProposalTallyInterface) proposalTally).getLongAmountOfJudgments();
+            } catch (ArithmeticException e) {
+                // More judgments than the amount of judges can hold, cannot be balanced
+                throw new UnbalancedTallyException();
+            }
+            if (firstProposal) {
+                amountOfJudges = amountOfJudgments;
+                firstProposal = false;
+            } else if (amountOfJudges != amountOfJudgments) {
+                throw new UnbalancedTallyException();
             }
+        }
+    }
 
-            merit = merit.add(
-                    analysis.getSecondMedianGroupSize().multiply(
-                            BigInteger.valueOf(analysis.getSecondMedianGroupSign())
-                    )
-            );
+    static int countGrades(ProposalTallyInterface proposalTally) {
+        if (proposalTally instanceof LongProposalTallyInterface) {
+            return ((LongProposalTallyInterface) proposalTally).countGrades();
+        }
+        return proposalTally.getTally().length;
+    }
 
-            currentTally.moveJudgments(analysis.getMedianGrade(), cursorGrade);
-            analysis.reanalyze(currentTally, favorContestation);
+    private boolean isTallyCoherent(ProposalTallyInterface[] tallies) {
+        for (ProposalTallyInterface proposalTally : tallies) {
+            if (proposalTally instanceof LongProposalTallyInterface) {
+                if (!isLongTallyCoherent((LongProposalTallyInterface) proposalTally)) {
+                    return false;
+                }
+                continue;
+            }
+            for (BigInteger gradeTally : proposalTally.getTally()) {
+                if (0 > gradeTally.compareTo(BigInteger.ZERO)) {
+                    return false; // negative tallies are not coherent
+                }
+            }
         }
 
-        return merit;
+        return true;
     }
 
-    private int countDigits(int number) {
-        //noinspection StringTemplateMigration
-        return ("" + number).length();
+    private static boolean isLongTallyCoherent(LongProposalTallyInterface proposalTally) {
+        int amountOfGrades = proposalTally.countGrades();
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            if (0L > proposalTally.getLongTally(grade)) {
+                return false; // negative tallies are not coherent
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * All the proposals must be judged with the same amount of grades.
+     */
+    private void checkGrades(ProposalTallyInterface[] tallies) {
+        if (0 == tallies.length) {
+            return;
+        }
+        int amountOfGrades = countGrades(tallies[0]);
+        for (ProposalTallyInterface proposalTally : tallies) {
+            if (amountOfGrades != countGrades(proposalTally)) {
+                throw new IncoherentTallyException();
+            }
+        }
+    }
+
+    private boolean isTallyBalanced(ProposalTallyInterface[] tallies) {
+        BigInteger amountOfJudges = BigInteger.ZERO;
+        boolean firstProposal = true;
+        for (ProposalTallyInterface proposalTally : tallies) {
+            if (firstProposal) {
+                amountOfJudges = proposalTally.getAmountOfJudgments();
+                firstProposal = false;
+            } else {
+                if (0 != amountOfJudges.compareTo(proposalTally.getAmountOfJudgments())) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
     }
 
-    private int countDigits(BigInteger number) {
-        //noinspection StringTemplateMigration
-        return ("" + number).length();
+    /**
+     * The merit of a proposal whose judgments are all of the "best" grade.  The median grade is
+     * the highest grade, and the walk of its median gauge has no steps, hence the closed form:
+     * (amountOfGrades - 1) * amountOfJudges ^ (amountOfGrades - 1)
+     */
+    static BigInteger computeMaxMerit(int amountOfGrades, BigInteger amountOfJudges) {
+        if (0 == amountOfGrades || 0 == amountOfJudges.signum()) {
+            return BigInteger.ZERO;
+        }
+
+        return BigInteger.valueOf(amountOfGrades - 1).multiply(amountOfJudges.pow(amountOfGrades - 1));
     }
 
     /**
@@ -329,7 +625,7 @@ public final class MajorityJudgmentDeliberator implements DeliberatorInterface {
      * See study/output_30_0.png
      * You can safely pretend that this does not exist, since it is NOT used in ranking.
      */
-    private Double adjustMeritToAffine(
+    static Double adjustMeritToAffine(
             BigInteger merit,
             BigInteger maxMerit,
             BigInteger amountOfJudges,
@@ -343,7 +639,7 @@ public final class MajorityJudgmentDeliberator implements DeliberatorInterface {
                 new BigDecimal(maxMerit), 15, RoundingMode.HALF_EVEN
         )).doubleValue();
 
-        double rankNormalized = new MeritToAbsoluteRankModel().apply(
+        double rankNormalized = MERIT_TO_ABSOLUTE_RANK_MODEL.apply(
                 meritNormalized,
                 amountOfGrades,
                 amountOfJudges.intValue()
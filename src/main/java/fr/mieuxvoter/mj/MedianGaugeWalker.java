@@ -0,0 +1,530 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+/**
+ * Walks the median gauge of a proposal's tally outwards, from the median grade, in a single pass.
+ *
+ * <p>The score, the merit and the resolution were historically computed by repeatedly moving the
+ * judgments of the median grade into the second median grade of a copy of the tally, and
+ * re-analyzing that copy each time, which is O(G²) per proposal. The median group only ever grows
+ * by absorbing its neighbouring grades, so we can instead keep the bounds of that group, and read
+ * the sizes of the contestation and adhesion groups from prefix sums. The tally is never copied
+ * nor mutated.
+ *
+ * <p>Each step of the walk records the grade absorbed by the median group, with the signed size
+ * of the second median group. Everything else is derived from those steps.
+ *
+ * <p>The walk runs on primitive longs whenever the amount of judgments fits, and on BigIntegers
+ * otherwise.
+ */
+final class MedianGaugeWalker {
+
+    private final boolean favorContestation;
+
+    private final int amountOfGrades;
+
+    /** Sum of the tallies of the grades strictly below each index ; of length amountOfGrades + 1. */
+    private long[] longPrefix;
+
+    private BigInteger[] bigPrefix;
+
+    private int medianGrade = 0;
+
+    private int contestationGrade = 0; // "best" non-empty grade below the median
+
+    private int adhesionGrade = 0; // "worst" non-empty grade above the median
+
+    private int amountOfSteps = 0;
+
+    private final int[] stepGrades; // grade absorbed by the median group at each step
+
+    private final int[] stepSigns; // -1 for contestation, +1 for adhesion
+
+    private final int[] stepDistances; // amount of grades the median group grew by at each step
+
+    private long[] longStepSizes;
+
+    private BigInteger[] bigStepSizes;
+
+    MedianGaugeWalker(ProposalTallyInterface tally, boolean favorContestation) {
+        this.favorContestation = favorContestation;
+
+        if (tally instanceof LongProposalTallyInterface) {
+            LongProposalTallyInterface longTally = (LongProposalTallyInterface) tally;
+            this.amountOfGrades = longTally.countGrades();
+            this.longPrefix = computeLongPrefix(longTally);
+        } else {
+            BigInteger[] gradesTallies = tally.getTally();
+            this.amountOfGrades = gradesTallies.length;
+            this.longPrefix = computeLongPrefix(gradesTallies);
+            if (null == this.longPrefix) {
+                this.bigPrefix = computeBigPrefix(gradesTallies);
+            }
+        }
+        if (null == this.longPrefix && null == this.bigPrefix) {
+            // Only reachable by a LongProposalTallyInterface whose sum overflows
+            this.bigPrefix = computeBigPrefix(tally.getTally());
+        }
+
+        int maxSteps = Math.max(0, this.amountOfGrades - 1);
+        this.stepGrades = new int[maxSteps];
+        this.stepSigns = new int[maxSteps];
+        this.stepDistances = new int[maxSteps];
+
+        if (null != this.longPrefix) {
+            this.longStepSizes = new long[maxSteps];
+            walkLongs();
+        } else {
+            this.bigStepSizes = new BigInteger[maxSteps];
+            walkBigs();
+        }
+    }
+
+    private static long[] computeLongPrefix(LongProposalTallyInterface tally) {
+        int amountOfGrades = tally.countGrades();
+        long[] prefix = new long[amountOfGrades + 1];
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            long gradeTally = tally.getLongTally(grade);
+            if (0L > gradeTally) {
+                throw new IllegalArgumentException("Negative tallies are not allowed.");
+            }
+            prefix[grade + 1] = prefix[grade] + gradeTally;
+            if (0L > prefix[grade + 1]) {
+                return null; // overflow
+            }
+        }
+        return prefix;
+    }
+
+    private static long[] computeLongPrefix(BigInteger[] gradesTallies) {
+        long[] prefix = new long[gradesTallies.length + 1];
+        boolean overflow = false;
+        for (int grade = 0; grade < gradesTallies.length; grade++) {
+            BigInteger gradeTally = gradesTallies[grade];
+            if (0 > gradeTally.signum()) {
+                throw new IllegalArgumentException("Negative tallies are not allowed.");
+            }
+            if (overflow) {
+                continue; // keep looking for negative tallies
+            }
+            if (gradeTally.bitLength() >= Long.SIZE - 1) {
+                overflow = true;
+                continue;
+            }
+            prefix[grade + 1] = prefix[grade] + gradeTally.longValue();
+            if (0L > prefix[grade + 1]) {
+                overflow = true;
+            }
+        }
+        return overflow ? null : prefix;
+    }
+
+    private static BigInteger[] computeBigPrefix(BigInteger[] gradesTallies) {
+        BigInteger[] prefix = new BigInteger[gradesTallies.length + 1];
+        prefix[0] = BigInteger.ZERO;
+        for (int grade = 0; grade < gradesTallies.length; grade++) {
+            if (0 > gradesTallies[grade].signum()) {
+                throw new IllegalArgumentException("Negative tallies are not allowed.");
+            }
+            prefix[grade + 1] = prefix[grade].add(gradesTallies[grade]);
+        }
+        return prefix;
+    }
+
+    private void walkLongs() {
+        long[] prefix = this.longPrefix;
+        long totalSize = prefix[this.amountOfGrades];
+        long medianCursor = totalSize / 2 + (totalSize % 2); // (totalSize + 1) / 2, sans overflow
+        if (!this.favorContestation) {
+            medianCursor = totalSize / 2 + 1; // (totalSize + 2) / 2
+        }
+
+        this.medianGrade = 0;
+        for (int grade = 0; grade < this.amountOfGrades; grade++) {
+            if (prefix[grade + 1] >= medianCursor) {
+                this.medianGrade = grade;
+                break;
+            }
+        }
+        this.contestationGrade = findNonEmptyGradeBelow(this.medianGrade);
+        this.adhesionGrade = findNonEmptyGradeAbove(this.medianGrade);
+
+        int low = this.medianGrade;
+        int high = this.medianGrade;
+        while (this.amountOfGrades > 0) {
+            long contestationGroupSize = prefix[low];
+            long adhesionGroupSize = totalSize - prefix[high + 1];
+            if (0L == contestationGroupSize && 0L == adhesionGroupSize) {
+                break;
+            }
+
+            int sign = chooseSign(Long.compare(adhesionGroupSize, contestationGroupSize));
+            int step = this.amountOfSteps;
+            if (0 > sign) {
+                int grade = findNonEmptyGradeBelow(low);
+                this.stepDistances[step] = low - grade;
+                this.longStepSizes[step] = contestationGroupSize;
+                this.stepGrades[step] = grade;
+                low = grade;
+            } else {
+                int grade = findNonEmptyGradeAbove(high);
+                this.stepDistances[step] = grade - high;
+                this.longStepSizes[step] = adhesionGroupSize;
+                this.stepGrades[step] = grade;
+                high = grade;
+            }
+            this.stepSigns[step] = sign;
+            this.amountOfSteps++;
+        }
+    }
+
+    private void walkBigs() {
+        BigInteger[] prefix = this.bigPrefix;
+        BigInteger totalSize = prefix[this.amountOfGrades];
+        int medianOffset = this.favorContestation ? 1 : 2;
+        BigInteger medianCursor = totalSize.add(BigInteger.valueOf(medianOffset)).shiftRight(1);
+
+        this.medianGrade = 0;
+        for (int grade = 0; grade < this.amountOfGrades; grade++) {
+            if (0 <= prefix[grade + 1].compareTo(medianCursor)) {
+                this.medianGrade = grade;
+                break;
+            }
+        }
+        this.contestationGrade = findNonEmptyGradeBelow(this.medianGrade);
+        this.adhesionGrade = findNonEmptyGradeAbove(this.medianGrade);
+
+        int low = this.medianGrade;
+        int high = this.medianGrade;
+        while (this.amountOfGrades > 0) {
+            BigInteger contestationGroupSize = prefix[low];
+            BigInteger adhesionGroupSize = totalSize.subtract(prefix[high + 1]);
+            if (0 == contestationGroupSize.signum() && 0 == adhesionGroupSize.signum()) {
+                break;
+            }
+
+            int sign = chooseSign(adhesionGroupSize.compareTo(contestationGroupSize));
+            int step = this.amountOfSteps;
+            if (0 > sign) {
+                int grade = findNonEmptyGradeBelow(low);
+                this.stepDistances[step] = low - grade;
+                this.bigStepSizes[step] = contestationGroupSize;
+                this.stepGrades[step] = grade;
+                low = grade;
+            } else {
+                int grade = findNonEmptyGradeAbove(high);
+                this.stepDistances[step] = grade - high;
+                this.bigStepSizes[step] = adhesionGroupSize;
+                this.stepGrades[step] = grade;
+                high = grade;
+            }
+            this.stepSigns[step] = sign;
+            this.amountOfSteps++;
+        }
+    }
+
+    /**
+     * @param comparison of the adhesion group size with the contestation group size
+     */
+    private int chooseSign(int comparison) {
+        if (0 < comparison) {
+            return 1;
+        }
+        if (0 > comparison) {
+            return -1;
+        }
+        return this.favorContestation ? -1 : 1;
+    }
+
+    private boolean isGradeEmpty(int grade) {
+        if (null != this.longPrefix) {
+            return this.longPrefix[grade + 1] == this.longPrefix[grade];
+        }
+        return 0 == this.bigPrefix[grade + 1].compareTo(this.bigPrefix[grade]);
+    }
+
+    /** @return the highest non-empty grade strictly below grade, or 0 if there are none */
+    private int findNonEmptyGradeBelow(int grade) {
+        for (int g = grade - 1; g >= 0; g--) {
+            if (!isGradeEmpty(g)) {
+                return g;
+            }
+        }
+        return 0;
+    }
+
+    /** @return the lowest non-empty grade strictly above grade, or 0 if there are none */
+    private int findNonEmptyGradeAbove(int grade) {
+        for (int g = grade + 1; g < this.amountOfGrades; g++) {
+            if (!isGradeEmpty(g)) {
+                return g;
+            }
+        }
+        return 0;
+    }
+
+    boolean isUsingPrimitives() {
+        return null != this.longPrefix;
+    }
+
+    int getAmountOfGrades() {
+        return amountOfGrades;
+    }
+
+    int getMedianGrade() {
+        return medianGrade;
+    }
+
+    int getAmountOfSteps() {
+        return amountOfSteps;
+    }
+
+    private BigInteger getStepSize(int step) {
+        if (null != this.longStepSizes) {
+            return BigInteger.valueOf(this.longStepSizes[step]);
+        }
+        return this.bigStepSizes[step];
+    }
+
+    /**
+     * Grade of the median group before each step of the score, as the legacy score computation
+     * saw it. Once the walk is over, the legacy computation "moved" the median group into grade 0.
+     */
+    private int getScoreGrade(int step) {
+        if (0 == step) {
+            return this.medianGrade;
+        }
+        if (step <= this.amountOfSteps) {
+            return this.stepGrades[step - 1];
+        }
+        return 0;
+    }
+
+    /**
+     * A higher score means a better rank.
+     *
+     * @param amountOfJudges Amount of judges participating, used as offset for the groups
+     * @param onlyNumbers    Do not use separation characters when rendering the legacy score
+     * @return the score of the proposal, also known as median gauge.
+     */
+    PackedScore computeScore(BigInteger amountOfJudges, boolean onlyNumbers) {
+        PackedScore score = new PackedScore(this.amountOfGrades, amountOfJudges, onlyNumbers);
+
+        if (null != this.longStepSizes && amountOfJudges.bitLength() < Long.SIZE - 1) {
+            long offset = amountOfJudges.longValue();
+            for (int i = 0; i < this.amountOfGrades; i++) {
+                long group = offset;
+                if (i < this.amountOfSteps) {
+                    group += this.stepSigns[i] * this.longStepSizes[i];
+                }
+                score.setStep(i, getScoreGrade(i), group);
+            }
+            return score;
+        }
+
+        for (int i = 0; i < this.amountOfGrades; i++) {
+            BigInteger group = amountOfJudges;
+            if (i < this.amountOfSteps) {
+                BigInteger size = getStepSize(i);
+                group = (0 < this.stepSigns[i]) ? group.add(size) : group.subtract(size);
+            }
+            score.setStep(i, getScoreGrade(i), group);
+        }
+        return score;
+    }
+
+    /**
+     * Compares the scores both walks would yield, were both tallies normalized to the same amount
+     * of judgments, without computing that amount (usually the LCM of their amounts of judgments).
+     *
+     * <p>The median grades and the walks do not change when a tally is scaled, only the sizes of
+     * the groups do, so we compare the sizes as fractions of each tally's own amount of judgments,
+     * by cross-multiplication.
+     *
+     * @return a positive integer if this score is higher ("better") than the other's
+     */
+    int compareNormalizedScore(MedianGaugeWalker other) {
+        BigInteger thisTotal = getTotalSize();
+        BigInteger otherTotal = other.getTotalSize();
+        int amountOfSteps = Math.min(this.amountOfGrades, other.amountOfGrades);
+        for (int i = 0; i < amountOfSteps; i++) {
+            int comparison = Integer.compare(getScoreGrade(i), other.getScoreGrade(i));
+            if (0 != comparison) {
+                return comparison;
+            }
+            comparison = compareFractions(
+                    getSignedStepSize(i), thisTotal,
+                    other.getSignedStepSize(i), otherTotal
+            );
+            if (0 != comparison) {
+                return comparison;
+            }
+        }
+        return Integer.compare(this.amountOfGrades, other.amountOfGrades);
+    }
+
+    /**
+     * @return the comparison of a/b with c/d, b and d being positive
+     */
+    private static int compareFractions(BigInteger a, BigInteger b, BigInteger c, BigInteger d) {
+        if (a.bitLength() + d.bitLength() < Long.SIZE - 1 && c.bitLength() + b.bitLength() < Long.SIZE - 1) {
+            return Long.compare(a.longValue() * d.longValue(), c.longValue() * b.longValue());
+        }
+        return a.multiply(d).compareTo(c.multiply(b));
+    }
+
+    private BigInteger getTotalSize() {
+        if (null != this.longPrefix) {
+            return BigInteger.valueOf(this.longPrefix[this.amountOfGrades]);
+        }
+        return this.bigPrefix[this.amountOfGrades];
+    }
+
+    private BigInteger getSignedStepSize(int step) {
+        if (step >= this.amountOfSteps) {
+            return BigInteger.ZERO;
+        }
+        BigInteger size = getStepSize(step);
+        return (0 < this.stepSigns[step]) ? size : size.negate();
+    }
+
+    /**
+     * This is not used in ranking, but helps compute a scalar merit for a given merit profile.
+     * Such a scalar merit is handy for deriving a proportional representation for example.
+     * This merit is isomorphic with MJ ranking and could be used for ranking. (bigger is better)
+     * Marc Paraire calls this merit the "MJ-Score".
+     * Each step of the walk weighs as many times as the amount of grades it covers.
+     *
+     * @param amountOfJudges Amount of judges participating, the base of the merit
+     */
+    BigInteger computeMerit(BigInteger amountOfJudges) {
+        if (null != this.longStepSizes && amountOfJudges.bitLength() < Long.SIZE) {
+            try {
+                return BigInteger.valueOf(computeLongMerit(amountOfJudges.longValue()));
+            } catch (ArithmeticException e) {
+                // Too big for a long, let's go for the BigInteger path below.
+            }
+        }
+
+        BigInteger merit = BigInteger.valueOf(this.medianGrade);
+        int step = 0;
+        int remainingDistance = (0 < this.amountOfSteps) ? this.stepDistances[0] : 0;
+        for (int i = 0; i < this.amountOfGrades - 1; i++) {
+            merit = merit.multiply(amountOfJudges);
+            if (step < this.amountOfSteps) {
+                BigInteger size = getStepSize(step);
+                merit = (0 < this.stepSigns[step]) ? merit.add(size) : merit.subtract(size);
+                remainingDistance--;
+                if (0 == remainingDistance) {
+                    step++;
+                    remainingDistance = (step < this.amountOfSteps) ? this.stepDistances[step] : 0;
+                }
+            }
+        }
+
+        return merit;
+    }
+
+    /**
+     * @throws ArithmeticException if the merit overflows a long
+     */
+    private long computeLongMerit(long amountOfJudges) {
+        long merit = this.medianGrade;
+        int step = 0;
+        int remainingDistance = (0 < this.amountOfSteps) ? this.stepDistances[0] : 0;
+        for (int i = 0; i < this.amountOfGrades - 1; i++) {
+            merit = Math.multiplyExact(merit, amountOfJudges);
+            if (step < this.amountOfSteps) {
+                merit = Math.addExact(merit, this.stepSigns[step] * this.longStepSizes[step]);
+                remainingDistance--;
+                if (0 == remainingDistance) {
+                    step++;
+                    remainingDistance = (step < this.amountOfSteps) ? this.stepDistances[step] : 0;
+                }
+            }
+        }
+
+        return merit;
+    }
+
+    /**
+     * The analysis of the tally, as ProposalTallyAnalysis.reanalyze() would compute it,
+     * read from the walk instead of another pass on the tally.
+     */
+    ProposalTallyAnalysis toAnalysis(ProposalTallyInterface tally) {
+        ProposalTallyAnalysis analysis = new ProposalTallyAnalysis();
+        analysis.tally = tally;
+        analysis.medianGrade = this.medianGrade;
+        analysis.contestationGrade = this.contestationGrade;
+        analysis.adhesionGrade = this.adhesionGrade;
+        if (0 == this.amountOfGrades) {
+            return analysis;
+        }
+
+        if (null != this.longPrefix) {
+            long totalSize = this.longPrefix[this.amountOfGrades];
+            analysis.totalSize = BigInteger.valueOf(totalSize);
+            analysis.contestationGroupSize = BigInteger.valueOf(this.longPrefix[this.medianGrade]);
+            analysis.adhesionGroupSize = BigInteger.valueOf(
+                    totalSize - this.longPrefix[this.medianGrade + 1]
+            );
+        } else {
+            BigInteger totalSize = this.bigPrefix[this.amountOfGrades];
+            analysis.totalSize = totalSize;
+            analysis.contestationGroupSize = this.bigPrefix[this.medianGrade];
+            analysis.adhesionGroupSize = totalSize.subtract(this.bigPrefix[this.medianGrade + 1]);
+        }
+        analysis.medianGroupSize = getGradeSize(this.medianGrade);
+
+        if (0 < this.amountOfSteps) {
+            analysis.secondMedianGrade = this.stepGrades[0];
+            analysis.secondMedianGroupSize = getStepSize(0);
+            analysis.secondMedianGroupSign = this.stepSigns[0];
+        } else {
+            analysis.secondMedianGrade = 0;
+            analysis.secondMedianGroupSize = BigInteger.ZERO;
+            analysis.secondMedianGroupSign = 0;
+        }
+
+        return analysis;
+    }
+
+    /**
+     * @return the median group, followed by the second median groups, in order of absorption.
+     */
+    ParticipantGroup[] computeResolution() {
+        ArrayList<ParticipantGroup> resolutionList = new ArrayList<>();
+        resolutionList.add(
+                new ParticipantGroup(
+                        getGradeSize(this.medianGrade),
+                        this.medianGrade,
+                        ParticipantGroup.Type.Median
+                )
+        );
+        for (int step = 0; step < this.amountOfSteps; step++) {
+            resolutionList.add(
+                    new ParticipantGroup(
+                            getStepSize(step),
+                            this.stepGrades[step],
+                            (0 < this.stepSigns[step])
+                                    ? ParticipantGroup.Type.Adhesion
+                                    : ParticipantGroup.Type.Contestation
+                    )
+            );
+        }
+
+        return resolutionList.toArray(new ParticipantGroup[0]);
+    }
+
+    private BigInteger getGradeSize(int grade) {
+        if (0 == this.amountOfGrades) {
+            return BigInteger.ZERO;
+        }
+        if (null != this.longPrefix) {
+            return BigInteger.valueOf(this.longPrefix[grade + 1] - this.longPrefix[grade]);
+        }
+        return this.bigPrefix[grade + 1].subtract(this.bigPrefix[grade]);
+    }
+}
@@ -0,0 +1,236 @@
+package fr.mieuxvoter.mj;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Enumerates lazily ALL the possible merit profiles of some amounts of grades and judges, in the
+ * lexicographic order of their tallies, from [0, …, 0, judges] to [judges, 0, …, 0].
+ *
+ * <p>The profiles are handed over in a single mutable long[] cursor, updated in place from one
+ * profile to the next: consumers must not modify it, and must copy it to keep it.  Each profile
+ * has an index, and the enumeration may start at any index, so that splitting it in halves for
+ * parallel streams, or skipping ahead, costs O(grades × log(judges)).
+ *
+ * <p>Only enumerations of fewer than 2⁶³ profiles are supported, which is plenty.
+ */
+public final class MeritProfileSpliterator implements Spliterator<long[]> {
+
+    private final int amountOfGrades;
+
+    private final long amountOfJudges;
+
+    /**
+     * Index of the next profile to hand over.
+     */
+    private long index;
+
+    /**
+     * Index past the last profile to hand over.
+     */
+    private final long fence;
+
+    /**
+     * The profile handed over last, or null when we must unrank the next one.
+     */
+    private long[] cursor;
+
+    public MeritProfileSpliterator(int amountOfGrades, long amountOfJudges) {
+        this(amountOfGrades, amountOfJudges, 0L, countProfiles(amountOfGrades, amountOfJudges));
+    }
+
+    private MeritProfileSpliterator(int amountOfGrades, long amountOfJudges, long index, long fence) {
+        this.amountOfGrades = amountOfGrades;
+        this.amountOfJudges = amountOfJudges;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * @param parallel whether the stream is parallel, the profiles being split between workers
+     */
+    public static Stream<long[]> stream(int amountOfGrades, long amountOfJudges, boolean parallel) {
+        return StreamSupport.stream(new MeritProfileSpliterator(amountOfGrades, amountOfJudges), parallel);
+    }
+
+    /**
+     * @return the amount of possible merit profiles
+     * @throws IllegalArgumentException when there are 2⁶³ profiles or more
+     */
+    public static long countProfiles(int amountOfGrades, long amountOfJudges) {
+        if (0 >= amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be > zero.");
+        }
+        if (0L > amountOfJudges) {
+            throw new IllegalArgumentException("Amount of judges must be ≥ zero.");
+        }
+        try {
+            return binomial(amountOfJudges + amountOfGrades - 1, amountOfGrades - 1);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many merit profiles to enumerate.", e);
+        }
+    }
+
+    /**
+     * @return the merit profile at this index, in a new array
+     */
+    public long[] getProfileAt(long profileIndex) {
+        if (0L > profileIndex || profileIndex >= countProfiles(this.amountOfGrades, this.amountOfJudges)) {
+            throw new IndexOutOfBoundsException("No merit profile at index " + profileIndex + ".");
+        }
+        return unrank(profileIndex);
+    }
+
+    /**
+     * @return the index of the next profile this spliterator will hand over
+     */
+    public long getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Skips ahead without enumerating the skipped profiles.
+     *
+     * @param amount of profiles to skip, at most the amount of remaining profiles
+     */
+    public void skip(long amount) {
+        if (0L > amount || amount > this.fence - this.index) {
+            throw new IllegalArgumentException("Cannot skip " + amount + " profiles.");
+        }
+        if (0L < amount) {
+            this.index += amount;
+            this.cursor = null;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super long[]> action) {
+        if (this.index >= this.fence) {
+            return false;
+        }
+        moveCursor();
+        this.index++;
+        action.accept(this.cursor);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super long[]> action) {
+        for (; this.index < this.fence; this.index++) {
+            moveCursor();
+            action.accept(this.cursor);
+        }
+    }
+
+    /**
+     * @return the first half of the remaining profiles, this one keeping the second half
+     */
+    @Override
+    public Spliterator<long[]> trySplit() {
+        long middle = this.index + ((this.fence - this.index) >>> 1);
+        if (middle <= this.index) {
+            return null;
+        }
+        MeritProfileSpliterator prefix = new MeritProfileSpliterator(
+                this.amountOfGrades,
+                this.amountOfJudges,
+                this.index,
+                middle
+        );
+        prefix.cursor = this.cursor;
+        this.cursor = null;
+        this.index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.fence - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+
+    private void moveCursor() {
+        if (null == this.cursor) {
+            this.cursor = unrank(this.index);
+        } else {
+            increment(this.cursor);
+        }
+    }
+
+    /**
+     * Moves the profile to the next one, in place.  Takes one judgment from the last non-empty
+     * grades, gives it to the grade before them, and moves the rest of them to the last grade.
+     */
+    private static void increment(long[] profile) {
+        int last = profile.length - 1;
+        long suffix = profile[last];
+        int grade = last - 1;
+        while (0L == suffix) {
+            suffix += profile[grade];
+            profile[grade] = 0L;
+            grade--;
+        }
+        profile[grade]++;
+        profile[last] = suffix - 1;
+    }
+
+    /**
+     * Profiles whose first grade holds fewer than v judgments come first: they are the
+     * binomial(judges + grades - 1, grades - 1) - binomial(judges - v + grades - 1, grades - 1)
+     * profiles of a hockey-stick sum.  We find the first grade by binary search, then recurse.
+     */
+    private long[] unrank(long profileIndex) {
+        long[] profile = new long[this.amountOfGrades];
+        long remainingIndex = profileIndex;
+        long remainingJudges = this.amountOfJudges;
+        for (int grade = 0; grade < this.amountOfGrades - 1; grade++) {
+            int freeGrades = this.amountOfGrades - grade - 1;
+            long all = binomial(remainingJudges + freeGrades, freeGrades);
+            long low = 0L;
+            long high = remainingJudges;
+            while (low < high) {
+                long middle = (low + high + 1) >>> 1;
+                long before = all - binomial(remainingJudges - middle + freeGrades, freeGrades);
+                if (before <= remainingIndex) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            remainingIndex -= all - binomial(remainingJudges - low + freeGrades, freeGrades);
+            remainingJudges -= low;
+            profile[grade] = low;
+        }
+        profile[this.amountOfGrades - 1] = remainingJudges;
+        return profile;
+    }
+
+    /**
+     * @throws ArithmeticException when it does not fit in a long
+     */
+    private static long binomial(long n, long k) {
+        long kk = Math.min(k, n - k);
+        long binomial = 1L;
+        for (long i = 1; i <= kk; i++) {
+            // binomial × (n - kk + i) is a multiple of i, and so is (n - kk + i) of i / gcd
+            long gcd = gcd(binomial, i);
+            binomial = Math.multiplyExact(binomial / gcd, (n - kk + i) / (i / gcd));
+        }
+        return binomial;
+    }
+
+    private static long gcd(long a, long b) {
+        while (0L != b) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
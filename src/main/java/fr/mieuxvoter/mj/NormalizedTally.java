@@ -2,6 +2,10 @@ package fr.mieuxvoter.mj;
 
 import java.math.BigInteger;
 import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * The deliberator expects the proposals' tallies to hold the same amount of judgments. This
@@ -9,53 +13,215 @@ import java.security.InvalidParameterException;
  * them to their least common multiple, which amounts to using percentages, except we don't use
  * floating-point arithmetic.
  *
+ * <p>Given a ForkJoinPool, the LCM is reduced as a tree on that pool, and proposals are scaled in
+ * parallel.  See RationalNormalizedTally to rank without computing the LCM at all.
+ *
  * <p>This is useful when there are too many proposals for judges to be expected to judge them all,
  * and all the proposals received reasonably similar amounts of judgments.
  */
 public class NormalizedTally extends Tally implements TallyInterface {
 
+    /**
+     * Below this amount of proposals, the LCM is reduced sequentially.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 64;
+
     public NormalizedTally(ProposalTallyInterface[] proposalsTallies) {
-        super(proposalsTallies);
-        initializeFromProposalsTallies(proposalsTallies);
+        this(proposalsTallies, null);
     }
 
     public NormalizedTally(TallyInterface tally) {
-        super(tally.getProposalsTallies());
-        initializeFromProposalsTallies(tally.getProposalsTallies());
+        this(tally.getProposalsTallies(), null);
+    }
+
+    public NormalizedTally(TallyInterface tally, ForkJoinPool pool) {
+        this(tally.getProposalsTallies(), pool);
+    }
+
+    /**
+     * @param pool on which to reduce the LCM and scale the proposals, or null to stay on the
+     *             calling thread
+     */
+    public NormalizedTally(ProposalTallyInterface[] proposalsTallies, ForkJoinPool pool) {
+        super(proposalsTallies);
+        initializeFromProposalsTallies(proposalsTallies, pool);
     }
 
     protected void initializeFromProposalsTallies(ProposalTallyInterface[] proposalsTallies) {
-        Integer amountOfProposals = getAmountOfProposals();
+        initializeFromProposalsTallies(proposalsTallies, null);
+    }
 
-        // Compute the Least Common Multiple
-        BigInteger amountOfJudges = BigInteger.ONE;
-        for (ProposalTallyInterface proposalTally : proposalsTallies) {
-            amountOfJudges = lcm(amountOfJudges, proposalTally.getAmountOfJudgments());
+    /**
+     * Normalizes on primitive longs when the LCM and the scaled tallies fit, since judgments
+     * counts often vary only a little, and on BigIntegers otherwise.
+     */
+    protected void initializeFromProposalsTallies(ProposalTallyInterface[] proposalsTallies, ForkJoinPool pool) {
+        FlightRecording.Normalization event = FlightRecording.startNormalization();
+        boolean primitive = true;
+        try {
+            initializeLongs(proposalsTallies, pool);
+        } catch (ArithmeticException e) {
+            primitive = false;
+            initializeBigs(proposalsTallies, pool);
+        }
+        if (null != event) {
+            event.finish(proposalsTallies.length, getAmountOfJudges().bitLength(), primitive);
         }
+    }
 
-        if (0 == amountOfJudges.compareTo(BigInteger.ZERO)) {
-            throw new InvalidParameterException(
-                    "Cannot normalize: one or more proposals have no judgments.");
+    /**
+     * @throws ArithmeticException when something does not fit in a long
+     */
+    private void initializeLongs(ProposalTallyInterface[] proposalsTallies, ForkJoinPool pool) {
+        int amountOfProposals = proposalsTallies.length;
+        long[] amountsOfJudgments = new long[amountOfProposals];
+        long amountOfJudges = 1L;
+        for (int i = 0; i < amountOfProposals; i++) {
+            ProposalTallyInterface proposalTally = proposalsTallies[i];
+            amountsOfJudgments[i] = (proposalTally instanceof LongProposalTallyInterface)
+                    ? ((LongProposalTallyInterface) proposalTally).getLongAmountOfJudgments()
+                    : proposalTally.getAmountOfJudgments().longValueExact();
+            amountOfJudges = lcm(amountOfJudges, amountsOfJudgments[i]);
         }
+        checkAmountOfJudges(BigInteger.valueOf(amountOfJudges));
+
+        long lcm = amountOfJudges;
+        LongProposalTally[] normalizedTallies = new LongProposalTally[amountOfProposals];
+        forEachProposal(pool, amountOfProposals, i -> {
+            ProposalTallyInterface proposalTally = proposalsTallies[i];
+            long factor = lcm / amountsOfJudgments[i];
+            long[] gradesTallies;
+            if (proposalTally instanceof LongProposalTallyInterface) {
+                LongProposalTallyInterface longTally = (LongProposalTallyInterface) proposalTally;
+                gradesTallies = new long[longTally.countGrades()];
+                for (int j = 0; j < gradesTallies.length; j++) {
+                    gradesTallies[j] = longTally.getLongTally(j);
+                }
+            } else {
+                BigInteger[] bigTallies = proposalTally.getTally();
+                gradesTallies = new long[bigTallies.length];
+                for (int j = 0; j < bigTallies.length; j++) {
+                    gradesTallies[j] = bigTallies[j].longValueExact();
+                }
+            }
+            for (int j = 0; j < gradesTallies.length; j++) {
+                gradesTallies[j] = Math.multiplyExact(gradesTallies[j], factor);
+            }
+            normalizedTallies[i] = new LongProposalTally(gradesTallies);
+        });
+
+        setProposalsTallies(normalizedTallies);
+        setAmountOfJudges(BigInteger.valueOf(amountOfJudges));
+    }
+
+    private void initializeBigs(ProposalTallyInterface[] proposalsTallies, ForkJoinPool pool) {
+        int amountOfProposals = proposalsTallies.length;
+        BigInteger[] amountsOfJudgments = new BigInteger[amountOfProposals];
+        forEachProposal(pool, amountOfProposals, i -> {
+            amountsOfJudgments[i] = proposalsTallies[i].getAmountOfJudgments();
+        });
+
+        // Compute the Least Common Multiple, by pairs, so that the operands grow evenly
+        BigInteger amountOfJudges = (null == pool || amountOfProposals <= SEQUENTIAL_THRESHOLD)
+                ? lcm(amountsOfJudgments, 0, amountOfProposals)
+                : pool.invoke(new LcmTask(amountsOfJudgments, 0, amountOfProposals));
+        checkAmountOfJudges(amountOfJudges);
 
         // Normalize proposals to the LCM
         ProposalTally[] normalizedTallies = new ProposalTally[amountOfProposals];
-        for (int i = 0; i < amountOfProposals; i++) {
+        forEachProposal(pool, amountOfProposals, i -> {
             ProposalTallyInterface proposalTally = proposalsTallies[i];
-            ProposalTally normalizedTally = new ProposalTally(proposalTally);
-            BigInteger factor = amountOfJudges.divide(proposalTally.getAmountOfJudgments());
-            Integer amountOfGrades = proposalTally.getTally().length;
-            BigInteger[] gradesTallies = normalizedTally.getTally();
-            for (int j = 0; j < amountOfGrades; j++) {
+            BigInteger factor = amountOfJudges.divide(amountsOfJudgments[i]);
+            BigInteger[] gradesTallies = proposalTally.getTally().clone();
+            for (int j = 0; j < gradesTallies.length; j++) {
                 gradesTallies[j] = gradesTallies[j].multiply(factor);
             }
-            normalizedTallies[i] = normalizedTally;
-        }
+            normalizedTallies[i] = new ProposalTally(gradesTallies);
+        });
 
         setProposalsTallies(normalizedTallies);
         setAmountOfJudges(amountOfJudges);
     }
 
+    private static void checkAmountOfJudges(BigInteger amountOfJudges) {
+        if (0 == amountOfJudges.compareTo(BigInteger.ZERO)) {
+            throw new InvalidParameterException(
+                    "Cannot normalize: one or more proposals have no judgments.");
+        }
+    }
+
+    private static void forEachProposal(ForkJoinPool pool, int amountOfProposals, IntConsumer action) {
+        if (null == pool || amountOfProposals < 2) {
+            for (int i = 0; i < amountOfProposals; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, amountOfProposals).parallel().forEach(action)).join();
+    }
+
+    /**
+     * @return the LCM of the amounts within [from, to), reduced by pairs
+     */
+    private static BigInteger lcm(BigInteger[] amounts, int from, int to) {
+        if (to - from <= 2) {
+            BigInteger lcm = BigInteger.ONE;
+            for (int i = from; i < to; i++) {
+                lcm = lcm(lcm, amounts[i]);
+            }
+            return lcm;
+        }
+        int middle = (from + to) >>> 1;
+        return lcm(lcm(amounts, from, middle), lcm(amounts, middle, to));
+    }
+
+    private static final class LcmTask extends RecursiveTask<BigInteger> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger[] amounts;
+
+        private final int from;
+
+        private final int to;
+
+        LcmTask(BigInteger[] amounts, int from, int to) {
+            this.amounts = amounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            if (this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+                return lcm(this.amounts, this.from, this.to);
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            LcmTask left = new LcmTask(this.amounts, this.from, middle);
+            left.fork();
+            BigInteger right = new LcmTask(this.amounts, middle, this.to).compute();
+            return lcm(left.join(), right);
+        }
+    }
+
+    /**
+     * @throws ArithmeticException when the LCM does not fit in a long
+     */
+    static long lcm(long a, long b) {
+        if (0 == a || 0 == b) {
+            return 0;
+        }
+        long x = a;
+        long y = b;
+        while (0 != y) {
+            long r = x % y;
+            x = y;
+            y = r;
+        }
+        return Math.multiplyExact(a / x, b);
+    }
+
     /**
      * Least Common Multiple
      *
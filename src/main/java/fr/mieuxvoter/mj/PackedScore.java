@@ -0,0 +1,185 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of the score of a proposal, also known as its median gauge.
+ *
+ * <p>The score is a sequence of steps, one per grade. Each step holds a median grade, and the
+ * signed size of the second median group, offset by the amount of judges to stay positive. Steps
+ * are packed into fixed-width words, so that comparing two scores of the same poll boils down to
+ * an unsigned lexicographical comparison of longs. Higher is "better".
+ *
+ * <p>When the grade and the group fit together in 64 bits (that is, almost always), each step
+ * takes exactly one word. Otherwise, each step takes one word for the grade and as many words
+ * as needed for the group, most significant first.
+ *
+ * <p>The legacy String score is only rendered when someone asks for it, with toString().
+ */
+public final class PackedScore implements Comparable<PackedScore> {
+
+    private final int amountOfGrades;
+
+    private final BigInteger amountOfJudges;
+
+    private final boolean onlyNumbers;
+
+    private final int bitsForGroup;
+
+    private final int wordsPerStep; // 1 when packed, 1 + words of the group otherwise
+
+    private final long[] words;
+
+    private String rendered;
+
+    /**
+     * @param amountOfGrades Amount of steps in the score, one per grade
+     * @param amountOfJudges Amount of judges participating, used as offset for the groups
+     * @param onlyNumbers    Do not use separation characters when rendering the legacy score
+     */
+    PackedScore(int amountOfGrades, BigInteger amountOfJudges, boolean onlyNumbers) {
+        this.amountOfGrades = amountOfGrades;
+        this.amountOfJudges = amountOfJudges;
+        this.onlyNumbers = onlyNumbers;
+
+        int highestGrade = Math.max(0, amountOfGrades - 1);
+        int bitsForGrade = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(highestGrade));
+        this.bitsForGroup = Math.max(1, amountOfJudges.shiftLeft(1).bitLength());
+        if (bitsForGrade + this.bitsForGroup <= Long.SIZE) {
+            this.wordsPerStep = 1;
+        } else {
+            this.wordsPerStep = 1 + (this.bitsForGroup + Long.SIZE - 1) / Long.SIZE;
+        }
+        this.words = new long[amountOfGrades * this.wordsPerStep];
+    }
+
+    /**
+     * @param step  Index of the step, from 0 to amountOfGrades - 1
+     * @param grade Median grade of the step
+     * @param group Signed size of the second median group, offset by the amount of judges
+     */
+    void setStep(int step, int grade, long group) {
+        if (1 == this.wordsPerStep) {
+            this.words[step] = ((long) grade << this.bitsForGroup) | group;
+        } else {
+            int offset = step * this.wordsPerStep;
+            this.words[offset] = grade;
+            this.words[offset + this.wordsPerStep - 1] = group;
+        }
+    }
+
+    /**
+     * @see this#setStep(int, int, long)
+     */
+    void setStep(int step, int grade, BigInteger group) {
+        if (group.bitLength() < Long.SIZE) {
+            setStep(step, grade, group.longValue());
+            return;
+        }
+
+        int offset = step * this.wordsPerStep;
+        this.words[offset] = grade;
+        for (int w = this.wordsPerStep - 1; w > 0; w--) {
+            this.words[offset + w] = group.longValue();
+            group = group.shiftRight(Long.SIZE);
+        }
+    }
+
+    public int getAmountOfGrades() {
+        return amountOfGrades;
+    }
+
+    int getGrade(int step) {
+        if (1 == this.wordsPerStep) {
+            return (int) (this.words[step] >>> this.bitsForGroup);
+        }
+        return (int) this.words[step * this.wordsPerStep];
+    }
+
+    BigInteger getGroup(int step) {
+        if (1 == this.wordsPerStep) {
+            // bitsForGroup is at most 63 here, since the grade takes at least one bit
+            return BigInteger.valueOf(this.words[step] & ((1L << this.bitsForGroup) - 1));
+        }
+
+        int offset = step * this.wordsPerStep;
+        BigInteger group = BigInteger.ZERO;
+        for (int w = 1; w < this.wordsPerStep; w++) {
+            long word = this.words[offset + w];
+            group = group.shiftLeft(Long.SIZE)
+                    .or(BigInteger.valueOf(word >>> Integer.SIZE).shiftLeft(Integer.SIZE))
+                    .or(BigInteger.valueOf(word & 0xFFFFFFFFL));
+        }
+        return group;
+    }
+
+    /**
+     * Scores are only comparable within the same poll, since their layout depends on the amounts
+     * of grades and judges.
+     */
+    @Override
+    public int compareTo(PackedScore other) {
+        int length = Math.min(this.words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            int comparison = Long.compareUnsigned(this.words[i], other.words[i]);
+            if (0 != comparison) {
+                return comparison;
+            }
+        }
+        return Integer.compare(this.words.length, other.words.length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PackedScore)) {
+            return false;
+        }
+        return Arrays.equals(this.words, ((PackedScore) other).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.words);
+    }
+
+    /**
+     * @return the legacy String score, made of zero-padded integers. Rendered once, on demand.
+     */
+    @Override
+    public String toString() {
+        if (null == this.rendered) {
+            this.rendered = render();
+        }
+        return this.rendered;
+    }
+
+    private String render() {
+        int digitsForGrade = String.valueOf(this.amountOfGrades).length();
+        int digitsForGroup = this.amountOfJudges.toString().length() + 1;
+
+        StringBuilder score = new StringBuilder();
+        for (int i = 0; i < this.amountOfGrades; i++) {
+            if (0 < i && !this.onlyNumbers) {
+                score.append("/");
+            }
+            appendPadded(score, String.valueOf(getGrade(i)), digitsForGrade);
+            if (!this.onlyNumbers) {
+                score.append("_");
+            }
+            appendPadded(score, getGroup(i).toString(), digitsForGroup);
+        }
+
+        return score.toString();
+    }
+
+    private static void appendPadded(StringBuilder builder, String digits, int width) {
+        for (int i = digits.length(); i < width; i++) {
+            builder.append('0');
+        }
+        builder.append(digits);
+    }
+}
@@ -0,0 +1,210 @@
+package fr.mieuxvoter.mj;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic polls of any size, for benchmarks and soak tests.
+ *
+ * <p>Each proposal draws a distribution of its judgments over the grades, following the chosen
+ * shape, and its amount of judgments is then split into grades by rounding, without drawing the
+ * judgments one by one.  Tallies are built straight into primitive longs, so that generating a
+ * poll costs O(grades) per proposal, whatever the amount of judges.
+ *
+ * <p>The same seed yields the same polls.
+ */
+public final class PollGenerator {
+
+    public enum Distribution {
+        /**
+         * Distributions drawn uniformly from all the possible distributions.
+         */
+        UNIFORM,
+        /**
+         * Judgments gather on both extreme grades.
+         */
+        POLARIZED,
+        /**
+         * Judgments gather around a grade, the same for all proposals.
+         */
+        CONSENSUAL,
+        /**
+         * A few grades get most of the judgments, with frequencies inversely proportional to
+         * their rank, in the order of a random permutation of the grades.
+         */
+        ZIPF,
+        /**
+         * All proposals are tiny variations of the same merit profile, so that deliberation
+         * must walk far from the median to break the ties.
+         */
+        NEAR_TIE,
+    }
+
+    private final Distribution distribution;
+
+    private final long seed;
+
+    private long maxMissingJudgments = 0L;
+
+    public PollGenerator(Distribution distribution, long seed) {
+        this.distribution = distribution;
+        this.seed = seed;
+    }
+
+    /**
+     * Each proposal will lack a random amount of judgments, up to this one, like with polls
+     * where judges do not judge every proposal.  Deliberate those with a default grade, or
+     * normalize them.
+     */
+    public void setMaxMissingJudgments(long maxMissingJudgments) {
+        if (0L > maxMissingJudgments) {
+            throw new IllegalArgumentException("Amount of missing judgments must be ≥ zero.");
+        }
+        this.maxMissingJudgments = maxMissingJudgments;
+    }
+
+    public LongTally generate(int amountOfProposals, int amountOfGrades, long amountOfJudges) {
+        return new LongTally(generateTallies(amountOfProposals, amountOfGrades, amountOfJudges), amountOfJudges);
+    }
+
+    /**
+     * @return one array of amounts of judgments per grade, per proposal
+     */
+    public long[][] generateTallies(int amountOfProposals, int amountOfGrades, long amountOfJudges) {
+        if (0 > amountOfProposals) {
+            throw new IllegalArgumentException("Amount of proposals must be ≥ zero.");
+        }
+        if (0 >= amountOfGrades) {
+            throw new IllegalArgumentException("Amount of grades must be > zero.");
+        }
+        if (0L > amountOfJudges) {
+            throw new IllegalArgumentException("Amount of judges must be ≥ zero.");
+        }
+
+        SplittableRandom random = new SplittableRandom(this.seed);
+        double[] shared = drawShared(random, amountOfGrades);
+        double[] weights = new double[amountOfGrades];
+        long[][] tallies = new long[amountOfProposals][];
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            long missing = random.nextLong(Math.min(this.maxMissingJudgments, amountOfJudges) + 1);
+            drawWeights(random, shared, weights);
+            tallies[proposal] = split(random, weights, amountOfJudges - missing);
+            if (Distribution.NEAR_TIE == this.distribution) {
+                nudge(random, tallies[proposal]);
+            }
+        }
+        return tallies;
+    }
+
+    /**
+     * @return what all the proposals of a poll have in common, if anything
+     */
+    private double[] drawShared(SplittableRandom random, int amountOfGrades) {
+        double[] shared = new double[amountOfGrades];
+        switch (this.distribution) {
+            case CONSENSUAL:
+                shared[0] = random.nextInt(amountOfGrades); // the consensual grade
+                break;
+            case NEAR_TIE:
+                drawDirichlet(random, shared);
+                break;
+            default:
+        }
+        return shared;
+    }
+
+    private void drawWeights(SplittableRandom random, double[] shared, double[] weights) {
+        int amountOfGrades = weights.length;
+        switch (this.distribution) {
+            case UNIFORM:
+                drawDirichlet(random, weights);
+                break;
+            case POLARIZED: {
+                double low = random.nextDouble();
+                double decay = 0.2 + 0.3 * random.nextDouble();
+                for (int grade = 0; grade < amountOfGrades; grade++) {
+                    int mirror = amountOfGrades - 1 - grade;
+                    weights[grade] = low * Math.pow(decay, grade) + (1.0 - low) * Math.pow(decay, mirror);
+                }
+                break;
+            }
+            case CONSENSUAL: {
+                double center = shared[0] + random.nextDouble() - 0.5;
+                double spread = Math.max(0.5, amountOfGrades / 10.0);
+                for (int grade = 0; grade < amountOfGrades; grade++) {
+                    double distance = (grade - center) / spread;
+                    weights[grade] = Math.exp(-0.5 * distance * distance);
+                }
+                break;
+            }
+            case ZIPF: {
+                for (int grade = 0; grade < amountOfGrades; grade++) {
+                    weights[grade] = 1.0 / (grade + 1);
+                }
+                for (int grade = amountOfGrades - 1; grade > 0; grade--) {
+                    int other = random.nextInt(grade + 1);
+                    double weight = weights[grade];
+                    weights[grade] = weights[other];
+                    weights[other] = weight;
+                }
+                break;
+            }
+            default: // NEAR_TIE
+                System.arraycopy(shared, 0, weights, 0, amountOfGrades);
+        }
+    }
+
+    /**
+     * Draws uniformly from the simplex, through normalized exponential variates.
+     */
+    private static void drawDirichlet(SplittableRandom random, double[] weights) {
+        for (int grade = 0; grade < weights.length; grade++) {
+            weights[grade] = -Math.log(1.0 - random.nextDouble());
+        }
+    }
+
+    /**
+     * Splits the judgments proportionally to the weights, the rounding leftovers going to
+     * grades drawn at random, following the weights as well.
+     */
+    private static long[] split(SplittableRandom random, double[] weights, long amountOfJudgments) {
+        int amountOfGrades = weights.length;
+        double sumOfWeights = 0.0;
+        for (double weight : weights) {
+            sumOfWeights += weight;
+        }
+
+        long[] tally = new long[amountOfGrades];
+        long leftovers = amountOfJudgments;
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            tally[grade] = Math.min(leftovers, (long) (amountOfJudgments * (weights[grade] / sumOfWeights)));
+            leftovers -= tally[grade];
+        }
+        for (; leftovers > 0; leftovers--) {
+            double cursor = random.nextDouble() * sumOfWeights;
+            int grade = 0;
+            while (grade < amountOfGrades - 1 && cursor >= weights[grade]) {
+                cursor -= weights[grade];
+                grade++;
+            }
+            tally[grade]++;
+        }
+        return tally;
+    }
+
+    /**
+     * Moves a few judgments between neighbouring grades.
+     */
+    private static void nudge(SplittableRandom random, long[] tally) {
+        if (tally.length < 2) {
+            return;
+        }
+        for (int moves = random.nextInt(4); moves > 0; moves--) {
+            int from = random.nextInt(tally.length);
+            int into = (0 == from || (from < tally.length - 1 && random.nextBoolean())) ? from + 1 : from - 1;
+            if (0L < tally[from]) {
+                tally[from]--;
+                tally[into]++;
+            }
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class ProposalResult implements ProposalResultInterface {
 
     protected String score;
 
+    protected PackedScore packedScore;
+
     protected BigInteger merit = BigInteger.ZERO;
 
     protected Double relativeMerit = 0.0;
@@ -39,7 +41,13 @@ public class ProposalResult implements ProposalResultInterface {
         this.rank = rank;
     }
 
+    /**
+     * The legacy String score is rendered from the packed score on first access.
+     */
     public String getScore() {
+        if (null == score && null != packedScore) {
+            score = packedScore.toString();
+        }
         return score;
     }
 
@@ -47,6 +55,15 @@ public class ProposalResult implements ProposalResultInterface {
         this.score = score;
     }
 
+    public PackedScore getPackedScore() {
+        return packedScore;
+    }
+
+    public void setPackedScore(PackedScore packedScore) {
+        this.packedScore = packedScore;
+        this.score = null;
+    }
+
     public BigInteger getMerit() {
         return merit;
     }
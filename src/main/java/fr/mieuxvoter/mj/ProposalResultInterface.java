@@ -24,6 +24,7 @@ public interface ProposalResultInterface {
      * need this, but it's here anyway.
      * The value is not meaningful, but it is fast to compute.
      * If you need a numerical 'score' value, prefer using the merit, which is meaningful.
+     * Ranking uses a packed binary form of this score ; this String is rendered on demand.
      */
     String getScore();
 
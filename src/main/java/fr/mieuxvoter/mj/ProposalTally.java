@@ -11,6 +11,17 @@ public class ProposalTally implements ProposalTallyInterface {
      */
     protected BigInteger[] tally;
 
+    /**
+     * Sum of the tally, maintained along with it, or null when it must be summed again.
+     */
+    private BigInteger amountOfJudgments;
+
+    /**
+     * prefixSums[g] is the amount of judgments of the grades below g, and the last one is the
+     * total.  Only computed when asked for, and dropped whenever the tally changes.
+     */
+    private BigInteger[] prefixSums;
+
     public ProposalTally() {}
 
     public ProposalTally(String[] tally) {
@@ -62,13 +73,27 @@ public class ProposalTally implements ProposalTallyInterface {
 
     public void setTally(BigInteger[] tally) {
         this.tally = tally;
+        invalidate();
     }
 
+    /**
+     * The raw tally, NOT a copy: treat it as read-only.  This tally maintains sums along with it,
+     * so use setTally(), addJudgments() or moveJudgments() to change it, or call invalidate() after
+     * writing into this array.
+     */
     @Override
     public BigInteger[] getTally() {
         return this.tally;
     }
 
+    /**
+     * Drops the maintained sums, after writes straight into the array of getTally().
+     */
+    public void invalidate() {
+        this.amountOfJudgments = null;
+        this.prefixSums = null;
+    }
+
     @Override
     public ProposalTallyInterface duplicate() {
         return new ProposalTally(Arrays.copyOf(this.tally, this.tally.length));
@@ -78,15 +103,47 @@ public class ProposalTally implements ProposalTallyInterface {
     public void moveJudgments(Integer fromGrade, Integer intoGrade) {
         this.tally[intoGrade] = this.tally[intoGrade].add(this.tally[fromGrade]);
         this.tally[fromGrade] = BigInteger.ZERO;
+        this.prefixSums = null; // the total does not change
+    }
+
+    /**
+     * Adds judgments into a grade, keeping the total up to date.
+     */
+    public void addJudgments(Integer grade, BigInteger amount) {
+        this.tally[grade] = this.tally[grade].add(amount);
+        if (null != this.amountOfJudgments) {
+            this.amountOfJudgments = this.amountOfJudgments.add(amount);
+        }
+        this.prefixSums = null;
     }
 
     @Override
     public BigInteger getAmountOfJudgments() {
-        BigInteger sum = BigInteger.ZERO;
-        int tallyLength = this.tally.length;
-        for (int i = 0; i < tallyLength; i++) {
-            sum = sum.add(this.tally[i]);
+        if (null == this.amountOfJudgments) {
+            BigInteger sum = BigInteger.ZERO;
+            int tallyLength = this.tally.length;
+            for (int i = 0; i < tallyLength; i++) {
+                sum = sum.add(this.tally[i]);
+            }
+            this.amountOfJudgments = sum;
+        }
+        return this.amountOfJudgments;
+    }
+
+    /**
+     * @return the amounts of judgments below each grade, and the total last ; do NOT write into it
+     */
+    public BigInteger[] getPrefixSums() {
+        if (null == this.prefixSums) {
+            int tallyLength = this.tally.length;
+            BigInteger[] prefixSums = new BigInteger[tallyLength + 1];
+            prefixSums[0] = BigInteger.ZERO;
+            for (int i = 0; i < tallyLength; i++) {
+                prefixSums[i + 1] = prefixSums[i].add(this.tally[i]);
+            }
+            this.prefixSums = prefixSums;
+            this.amountOfJudgments = prefixSums[tallyLength];
         }
-        return sum;
+        return this.prefixSums;
     }
 }
@@ -1,7 +1,6 @@
 package fr.mieuxvoter.mj;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 
 /**
  * Collect useful data on a proposal's tally.
@@ -54,6 +53,13 @@ public class ProposalTallyAnalysis {
 
     public void reanalyze(ProposalTallyInterface tally, Boolean favorContestation) {
         this.tally = tally;
+        if (tally instanceof LongProposalTallyInterface) {
+            if (reanalyzeLongs((LongProposalTallyInterface) tally, favorContestation)) {
+                return;
+            }
+            // The total overflowed a long ; let's go for the BigInteger path below.
+        }
+
         this.totalSize = BigInteger.ZERO;
         this.medianGrade = 0;
         this.medianGroupSize = BigInteger.ZERO;
@@ -66,11 +72,14 @@ public class ProposalTallyAnalysis {
         int amountOfGrades = gradesTallies.length;
 
         for (BigInteger gradeTally : gradesTallies) {
-            if (0 > gradeTally.compareTo(BigInteger.ZERO)) {
+            if (0 > gradeTally.signum()) {
                 throw new IllegalArgumentException("Negative tallies are not allowed.");
             }
-            this.totalSize = this.totalSize.add(gradeTally);
         }
+        BigInteger[] prefixSums = (this.tally instanceof ProposalTally)
+                ? ((ProposalTally) this.tally).getPrefixSums() // maintained by the tally
+                : computePrefixSums(gradesTallies);
+        this.totalSize = prefixSums[amountOfGrades];
 
         int medianOffset = 1;
         if (favorContestation.equals(Boolean.FALSE)) {
@@ -82,33 +91,36 @@ public class ProposalTallyAnalysis {
                         .divide(BigInteger.valueOf(2))
         );
 
-        BigInteger tallyBeforeCursor;
-        BigInteger tallyCursor = BigInteger.ZERO;
-        boolean foundMedian = false;
-        for (int grade = 0; grade < amountOfGrades; grade++) {
-            BigInteger gradeTally = gradesTallies[grade];
-            tallyBeforeCursor = tallyCursor;
-            tallyCursor = tallyCursor.add(gradeTally);
-
-            if (!foundMedian) {
-                if (-1 < tallyCursor.compareTo(medianCursor)) { // tallyCursor >= medianCursor
-                    foundMedian = true;
-                    this.medianGrade = grade;
-                    this.contestationGroupSize = tallyBeforeCursor;
-                    this.medianGroupSize = gradeTally;
-                    this.adhesionGroupSize = (
-                            this.totalSize
-                                    .subtract(this.contestationGroupSize)
-                                    .subtract(this.medianGroupSize)
-                    );
+        // The median grade is the first one whose prefix sum (itself included) reaches the cursor.
+        // Prefix sums are non-decreasing, so we may binary search them.
+        if (0 < amountOfGrades && 0 <= prefixSums[amountOfGrades].compareTo(medianCursor)) {
+            int low = 0;
+            int high = amountOfGrades - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (0 <= prefixSums[middle + 1].compareTo(medianCursor)) {
+                    high = middle;
                 } else {
-                    if (0 < gradeTally.compareTo(BigInteger.ZERO)) { // 0 < gradeTally
-                        this.contestationGrade = grade;
-                    }
+                    low = middle + 1;
                 }
-            } else {
-                if (0 < gradeTally.compareTo(BigInteger.ZERO) && 0 == this.adhesionGrade) {
-                    this.adhesionGrade = grade;
+            }
+            int grade = low;
+            this.medianGrade = grade;
+            this.contestationGroupSize = prefixSums[grade];
+            this.medianGroupSize = gradesTallies[grade];
+            this.adhesionGroupSize = this.totalSize.subtract(prefixSums[grade + 1]);
+
+            // Nearest non-empty grades around the median
+            for (int g = grade - 1; g > 0; g--) {
+                if (0 < gradesTallies[g].signum()) {
+                    this.contestationGrade = g;
+                    break;
+                }
+            }
+            for (int g = grade + 1; g < amountOfGrades; g++) {
+                if (0 < gradesTallies[g].signum()) {
+                    this.adhesionGrade = g;
+                    break;
                 }
             }
         }
@@ -136,54 +148,119 @@ public class ProposalTallyAnalysis {
         }
     }
 
+    private static BigInteger[] computePrefixSums(BigInteger[] gradesTallies) {
+        BigInteger[] prefixSums = new BigInteger[gradesTallies.length + 1];
+        prefixSums[0] = BigInteger.ZERO;
+        for (int grade = 0; grade < gradesTallies.length; grade++) {
+            prefixSums[grade + 1] = prefixSums[grade].add(gradesTallies[grade]);
+        }
+        return prefixSums;
+    }
+
+    /**
+     * Same as the BigInteger analysis above, but on primitives, to skip allocations.
+     *
+     * @return false if the total amount of judgments overflows a long, and nothing was written.
+     */
+    private boolean reanalyzeLongs(LongProposalTallyInterface tally, Boolean favorContestation) {
+        int amountOfGrades = tally.countGrades();
+
+        long totalSize = 0L;
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            long gradeTally = tally.getLongTally(grade);
+            if (0L > gradeTally) {
+                throw new IllegalArgumentException("Negative tallies are not allowed.");
+            }
+            totalSize += gradeTally;
+            if (0L > totalSize) {
+                return false; // overflow
+            }
+        }
+
+        long medianCursor = totalSize / 2 + (totalSize % 2); // (totalSize + 1) / 2, sans overflow
+        if (favorContestation.equals(Boolean.FALSE)) {
+            medianCursor = totalSize / 2 + 1; // (totalSize + 2) / 2
+        }
+
+        int medianGrade = 0;
+        long medianGroupSize = 0L;
+        int contestationGrade = 0;
+        long contestationGroupSize = 0L;
+        int adhesionGrade = 0;
+        long adhesionGroupSize = 0L;
+
+        long tallyBeforeCursor;
+        long tallyCursor = 0L;
+        boolean foundMedian = false;
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            long gradeTally = tally.getLongTally(grade);
+            tallyBeforeCursor = tallyCursor;
+            tallyCursor += gradeTally;
+
+            if (!foundMedian) {
+                if (tallyCursor >= medianCursor) {
+                    foundMedian = true;
+                    medianGrade = grade;
+                    contestationGroupSize = tallyBeforeCursor;
+                    medianGroupSize = gradeTally;
+                    adhesionGroupSize = totalSize - contestationGroupSize - medianGroupSize;
+                } else if (0L < gradeTally) {
+                    contestationGrade = grade;
+                }
+            } else if (0L < gradeTally && 0 == adhesionGrade) {
+                adhesionGrade = grade;
+            }
+        }
+
+        long secondMedianGroupSize = Math.max(contestationGroupSize, adhesionGroupSize);
+        int secondMedianGrade;
+        int secondMedianGroupSign;
+        if (adhesionGroupSize > contestationGroupSize) {
+            secondMedianGrade = adhesionGrade;
+            secondMedianGroupSign = 1;
+        } else if (contestationGroupSize > adhesionGroupSize) {
+            secondMedianGrade = contestationGrade;
+            secondMedianGroupSign = -1;
+        } else if (favorContestation.equals(Boolean.TRUE)) {
+            secondMedianGrade = contestationGrade;
+            secondMedianGroupSign = -1;
+        } else {
+            secondMedianGrade = adhesionGrade;
+            secondMedianGroupSign = 1;
+        }
+        if (0L == secondMedianGroupSize) {
+            secondMedianGroupSign = 0;
+        }
+
+        this.totalSize = BigInteger.valueOf(totalSize);
+        this.medianGrade = medianGrade;
+        this.medianGroupSize = BigInteger.valueOf(medianGroupSize);
+        this.contestationGrade = contestationGrade;
+        this.contestationGroupSize = BigInteger.valueOf(contestationGroupSize);
+        this.adhesionGrade = adhesionGrade;
+        this.adhesionGroupSize = BigInteger.valueOf(adhesionGroupSize);
+        this.secondMedianGrade = secondMedianGrade;
+        this.secondMedianGroupSize = BigInteger.valueOf(secondMedianGroupSize);
+        this.secondMedianGroupSign = secondMedianGroupSign;
+
+        return true;
+    }
+
     public ParticipantGroup[] computeResolution(
             ProposalTallyInterface tally
     ) {
         return computeResolution(tally, true);
     }
 
+    /**
+     * The resolution is the list of groups of participants, in the order they are absorbed by the
+     * median group.  This walks the median gauge once, without copying the tally.
+     */
     public ParticipantGroup[] computeResolution(
             ProposalTallyInterface tally,
             Boolean favorContestation
     ) {
-        ArrayList<ParticipantGroup> resolutionList = new ArrayList<>();
-        ProposalTallyInterface currentTally = tally.duplicate();
-        ProposalTallyAnalysis analysis = new ProposalTallyAnalysis();
-
-        analysis.reanalyze(currentTally, favorContestation);
-        resolutionList.add(
-                new ParticipantGroup(
-                        analysis.medianGroupSize,
-                        analysis.medianGrade,
-                        ParticipantGroup.Type.Median
-                )
-        );
-
-        int amountOfGrades = tally.getTally().length;
-        for (int cursor = 1; cursor < amountOfGrades; cursor++) {
-            analysis.reanalyze(currentTally, favorContestation);
-
-            ParticipantGroup.Type type = ParticipantGroup.Type.Median;
-            if (analysis.secondMedianGroupSign > 0) {
-                type = ParticipantGroup.Type.Adhesion;
-            } else if (analysis.secondMedianGroupSign < 0) {
-                type = ParticipantGroup.Type.Contestation;
-            }
-
-            if (type != ParticipantGroup.Type.Median) { // ie. secondMedianGroupSize != 0
-                resolutionList.add(
-                        new ParticipantGroup(
-                                analysis.secondMedianGroupSize,
-                                analysis.secondMedianGrade,
-                                type
-                        )
-                );
-            }
-
-            currentTally.moveJudgments(analysis.getMedianGrade(), analysis.getSecondMedianGrade());
-        }
-
-        return resolutionList.toArray(new ParticipantGroup[0]);
+        return new MedianGaugeWalker(tally, favorContestation).computeResolution();
     }
 
     public BigInteger getTotalSize() {
@@ -0,0 +1,79 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.security.InvalidParameterException;
+
+/**
+ * Like NormalizedTally, this accepts tallies with disparate amounts of judgments per proposal, but
+ * it does not normalize them upfront.
+ *
+ * <p>The least common multiple of thousands of (prime-ish) amounts of judgments is a huge number,
+ * and so are the normalized tallies.  Yet ranking does not need it: MajorityJudgmentDeliberator
+ * recognizes this tally, and compares the proposals' scores as exact fractions of their own
+ * amount of judgments.  Ranks are the same as with a NormalizedTally.
+ *
+ * <p>The normalized tallies are only computed (once) when someone asks for them, for example to
+ * compute the merits of the proposals.
+ */
+public class RationalNormalizedTally implements TallyInterface {
+
+    private final ProposalTallyInterface[] rawProposalsTallies;
+
+    private NormalizedTally normalizedTally;
+
+    public RationalNormalizedTally(ProposalTallyInterface[] proposalsTallies) {
+        for (ProposalTallyInterface proposalTally : proposalsTallies) {
+            if (0 == proposalTally.getAmountOfJudgments().signum()) {
+                throw new InvalidParameterException(
+                        "Cannot normalize: one or more proposals have no judgments.");
+            }
+        }
+        this.rawProposalsTallies = proposalsTallies;
+    }
+
+    public RationalNormalizedTally(TallyInterface tally) {
+        this(tally.getProposalsTallies());
+    }
+
+    /**
+     * @return the tallies as they were given, each with its own amount of judgments
+     */
+    public ProposalTallyInterface[] getRawProposalsTallies() {
+        return this.rawProposalsTallies;
+    }
+
+    /**
+     * @return the tallies normalized to the least common multiple of their amounts of judgments
+     */
+    @Override
+    public ProposalTallyInterface[] getProposalsTallies() {
+        return normalize().getProposalsTallies();
+    }
+
+    /**
+     * @return the least common multiple of the amounts of judgments of the proposals
+     */
+    @Override
+    public BigInteger getAmountOfJudges() {
+        return normalize().getAmountOfJudges();
+    }
+
+    @Override
+    public Integer getAmountOfProposals() {
+        return this.rawProposalsTallies.length;
+    }
+
+    /**
+     * @return whether the normalized tallies were computed already
+     */
+    public synchronized boolean isNormalized() {
+        return null != this.normalizedTally;
+    }
+
+    private synchronized NormalizedTally normalize() {
+        if (null == this.normalizedTally) {
+            this.normalizedTally = new NormalizedTally(this.rawProposalsTallies);
+        }
+        return this.normalizedTally;
+    }
+}
@@ -1,6 +1,7 @@
 package fr.mieuxvoter.mj;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A Basic implementation of a TallyInterface that reads from an array of ProposalTallyInterface.
@@ -58,4 +59,25 @@ public class Tally implements TallyInterface {
         }
         setAmountOfJudges(guessedAmount);
     }
+
+    /**
+     * Sums tallies collected separately (on shards, for example), grade by grade.  Judges are
+     * assumed to be distinct across tallies, so their amounts are summed as well.
+     *
+     * <p>The merged tally is a LongTally, unless the sums overflow a long.
+     *
+     * @throws IllegalArgumentException when the tallies do not hold the same amounts of proposals
+     *                                  and grades
+     */
+    public static TallyInterface merge(TallyInterface... tallies) {
+        return TallyMerger.merge(tallies, null);
+    }
+
+    /**
+     * @param pool on which to sum the tallies by pairs, in a parallel tree reduction
+     * @see Tally#merge(TallyInterface...)
+     */
+    public static TallyInterface merge(ForkJoinPool pool, TallyInterface... tallies) {
+        return TallyMerger.merge(tallies, pool);
+    }
 }
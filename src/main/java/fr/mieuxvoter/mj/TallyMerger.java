@@ -0,0 +1,186 @@
+package fr.mieuxvoter.mj;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sums tallies collected on separate shards, grade by grade.  See Tally.merge().
+ *
+ * <p>Sums run on primitive longs, and only fall back to BigIntegers when they would overflow.
+ * Given a ForkJoinPool, shards are summed by pairs, in a parallel tree reduction.
+ */
+final class TallyMerger {
+
+    /**
+     * Below this amount of shards, we sum them sequentially.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private TallyMerger() {
+    }
+
+    static TallyInterface merge(TallyInterface[] tallies, ForkJoinPool pool) {
+        if (0 == tallies.length) {
+            throw new IllegalArgumentException("We need at least one tally to merge.");
+        }
+
+        // Read each shard once, from one snapshot when it is still collecting
+        ProposalTallyInterface[][] shardsTallies = new ProposalTallyInterface[tallies.length][];
+        BigInteger[] amountsOfJudges = new BigInteger[tallies.length];
+        for (int t = 0; t < tallies.length; t++) {
+            TallyInterface snapshot = ConcurrentCollectedTally.snapshotOf(tallies[t]);
+            shardsTallies[t] = snapshot.getProposalsTallies();
+            amountsOfJudges[t] = snapshot.getAmountOfJudges();
+        }
+        int[] amountsOfGrades = checkCompatibility(shardsTallies);
+
+        try {
+            long[][] sum = (null == pool || tallies.length <= SEQUENTIAL_THRESHOLD)
+                    ? sumLongs(shardsTallies, 0, tallies.length, amountsOfGrades)
+                    : pool.invoke(new LongSumTask(shardsTallies, 0, tallies.length, amountsOfGrades));
+            long amountOfJudges = 0L;
+            for (BigInteger shardAmountOfJudges : amountsOfJudges) {
+                amountOfJudges = Math.addExact(amountOfJudges, shardAmountOfJudges.longValueExact());
+            }
+            return new LongTally(sum, amountOfJudges);
+        } catch (ArithmeticException e) {
+            return mergeBigs(shardsTallies, amountsOfJudges, amountsOfGrades);
+        }
+    }
+
+    /**
+     * @return the amount of grades of each proposal, which must be the same in all the tallies
+     */
+    private static int[] checkCompatibility(ProposalTallyInterface[][] shardsTallies) {
+        int amountOfProposals = shardsTallies[0].length;
+        int[] amountsOfGrades = new int[amountOfProposals];
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            amountsOfGrades[proposal] = countGrades(shardsTallies[0][proposal]);
+        }
+
+        for (ProposalTallyInterface[] proposalsTallies : shardsTallies) {
+            if (amountOfProposals != proposalsTallies.length) {
+                throw new IllegalArgumentException("Merged tallies must hold the same amount of proposals.");
+            }
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                if (amountsOfGrades[proposal] != countGrades(proposalsTallies[proposal])) {
+                    throw new IllegalArgumentException(
+                            "Merged tallies must hold the same amount of grades, for proposal #" + proposal + "."
+                    );
+                }
+            }
+        }
+
+        return amountsOfGrades;
+    }
+
+    private static int countGrades(ProposalTallyInterface proposalTally) {
+        return MajorityJudgmentDeliberator.countGrades(proposalTally);
+    }
+
+    /**
+     * @throws ArithmeticException when a sum would overflow
+     */
+    private static long[][] sumLongs(
+            ProposalTallyInterface[][] shardsTallies,
+            int from,
+            int to,
+            int[] amountsOfGrades
+    ) {
+        long[][] sum = new long[amountsOfGrades.length][];
+        for (int proposal = 0; proposal < amountsOfGrades.length; proposal++) {
+            sum[proposal] = new long[amountsOfGrades[proposal]];
+        }
+
+        for (int t = from; t < to; t++) {
+            for (int proposal = 0; proposal < amountsOfGrades.length; proposal++) {
+                ProposalTallyInterface proposalTally = shardsTallies[t][proposal];
+                long[] proposalSum = sum[proposal];
+                if (proposalTally instanceof LongProposalTallyInterface) {
+                    LongProposalTallyInterface longTally = (LongProposalTallyInterface) proposalTally;
+                    for (int grade = 0; grade < proposalSum.length; grade++) {
+                        proposalSum[grade] = Math.addExact(proposalSum[grade], longTally.getLongTally(grade));
+                    }
+                } else {
+                    BigInteger[] gradesTallies = proposalTally.getTally();
+                    for (int grade = 0; grade < proposalSum.length; grade++) {
+                        proposalSum[grade] = Math.addExact(proposalSum[grade], gradesTallies[grade].longValueExact());
+                    }
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    private static final class LongSumTask extends RecursiveTask<long[][]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ProposalTallyInterface[][] shardsTallies;
+
+        private final int from;
+
+        private final int to;
+
+        private final int[] amountsOfGrades;
+
+        LongSumTask(ProposalTallyInterface[][] shardsTallies, int from, int to, int[] amountsOfGrades) {
+            this.shardsTallies = shardsTallies;
+            this.from = from;
+            this.to = to;
+            this.amountsOfGrades = amountsOfGrades;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+                return sumLongs(this.shardsTallies, this.from, this.to, this.amountsOfGrades);
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            LongSumTask left = new LongSumTask(this.shardsTallies, this.from, middle, this.amountsOfGrades);
+            LongSumTask right = new LongSumTask(this.shardsTallies, middle, this.to, this.amountsOfGrades);
+            left.fork();
+            long[][] sum = right.compute();
+            long[][] leftSum = left.join();
+            for (int proposal = 0; proposal < sum.length; proposal++) {
+                for (int grade = 0; grade < sum[proposal].length; grade++) {
+                    sum[proposal][grade] = Math.addExact(sum[proposal][grade], leftSum[proposal][grade]);
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static TallyInterface mergeBigs(
+            ProposalTallyInterface[][] shardsTallies,
+            BigInteger[] amountsOfJudges,
+            int[] amountsOfGrades
+    ) {
+        BigInteger[][] sum = new BigInteger[amountsOfGrades.length][];
+        for (int proposal = 0; proposal < amountsOfGrades.length; proposal++) {
+            sum[proposal] = new BigInteger[amountsOfGrades[proposal]];
+            Arrays.fill(sum[proposal], BigInteger.ZERO);
+        }
+
+        BigInteger amountOfJudges = BigInteger.ZERO;
+        for (int t = 0; t < shardsTallies.length; t++) {
+            for (int proposal = 0; proposal < amountsOfGrades.length; proposal++) {
+                BigInteger[] gradesTallies = shardsTallies[t][proposal].getTally();
+                for (int grade = 0; grade < amountsOfGrades[proposal]; grade++) {
+                    sum[proposal][grade] = sum[proposal][grade].add(gradesTallies[grade]);
+                }
+            }
+            amountOfJudges = amountOfJudges.add(amountsOfJudges[t]);
+        }
+
+        ProposalTallyInterface[] proposalsTallies = new ProposalTallyInterface[amountsOfGrades.length];
+        for (int proposal = 0; proposal < amountsOfGrades.length; proposal++) {
+            proposalsTallies[proposal] = new ProposalTally(sum[proposal]);
+        }
+        return new Tally(proposalsTallies, amountOfJudges);
+    }
+}
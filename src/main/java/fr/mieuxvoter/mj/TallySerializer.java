@@ -0,0 +1,342 @@
+package fr.mieuxvoter.mj;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes tallies into a compact binary format, and reads them back.
+ *
+ * <p>The format (version 1) is made of a header, and of a payload:
+ *
+ * <pre>
+ * header:   'M' 'J' 'T' version(1 byte) payloadSize(varint)
+ * payload:  amountOfProposals(varint) amountOfJudges(count)
+ *           then for each proposal: amountOfGrades(varint) then one count per grade
+ * </pre>
+ *
+ * <p>Varints are unsigned LEB128, like protobuf's.  A count is a varint holding twice its value
+ * when it is a positive long, or the varint 1 followed by a varint length and the two's-complement
+ * bytes of a BigInteger otherwise.  Reading from a ByteBuffer decodes straight from the buffer,
+ * and tallies that fit in longs are read back as LongTallies.
+ */
+public final class TallySerializer {
+
+    static final byte[] MAGIC = {'M', 'J', 'T'};
+
+    static final int VERSION = 1;
+
+    private static final long BIG_ESCAPE = 1L;
+
+    private TallySerializer() {
+    }
+
+    /**
+     * @return the amount of bytes writeTo() will write for this tally, header included
+     */
+    public static int sizeOf(TallyInterface tally) {
+        TallyInterface snapshot = ConcurrentCollectedTally.snapshotOf(tally);
+        return sizeOf(sizeOfPayload(snapshot.getProposalsTallies(), snapshot.getAmountOfJudges()));
+    }
+
+    public static void writeTo(TallyInterface tally, OutputStream output) throws IOException {
+        // Read the tally once, since a live tally may change between the sizing and the writing
+        TallyInterface snapshot = ConcurrentCollectedTally.snapshotOf(tally);
+        ProposalTallyInterface[] proposalsTallies = snapshot.getProposalsTallies();
+        BigInteger amountOfJudges = snapshot.getAmountOfJudges();
+        int payloadSize = sizeOfPayload(proposalsTallies, amountOfJudges);
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(payloadSize));
+        writeTo(proposalsTallies, amountOfJudges, payloadSize, buffer);
+        output.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException when the buffer has less than sizeOf(tally) bytes left
+     */
+    public static void writeTo(TallyInterface tally, ByteBuffer buffer) {
+        TallyInterface snapshot = ConcurrentCollectedTally.snapshotOf(tally);
+        ProposalTallyInterface[] proposalsTallies = snapshot.getProposalsTallies();
+        BigInteger amountOfJudges = snapshot.getAmountOfJudges();
+        writeTo(proposalsTallies, amountOfJudges, sizeOfPayload(proposalsTallies, amountOfJudges), buffer);
+    }
+
+    private static void writeTo(
+            ProposalTallyInterface[] proposalsTallies,
+            BigInteger amountOfJudges,
+            int payloadSize,
+            ByteBuffer buffer
+    ) {
+        buffer.put(MAGIC);
+        buffer.put((byte) VERSION);
+        putVarint(buffer, payloadSize);
+
+        putVarint(buffer, proposalsTallies.length);
+        putCount(buffer, amountOfJudges);
+        for (ProposalTallyInterface proposalTally : proposalsTallies) {
+            if (proposalTally instanceof LongProposalTallyInterface) {
+                LongProposalTallyInterface longTally = (LongProposalTallyInterface) proposalTally;
+                int amountOfGrades = longTally.countGrades();
+                putVarint(buffer, amountOfGrades);
+                for (int grade = 0; grade < amountOfGrades; grade++) {
+                    putCount(buffer, longTally.getLongTally(grade));
+                }
+            } else {
+                BigInteger[] gradesTallies = proposalTally.getTally();
+                putVarint(buffer, gradesTallies.length);
+                for (BigInteger gradeTally : gradesTallies) {
+                    putCount(buffer, gradeTally);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads exactly one tally from the stream, and nothing more.
+     *
+     * @throws InvalidTallyFormatException when the bytes are not a tally we can read
+     */
+    public static TallyInterface readFrom(InputStream input) throws IOException {
+        DataInputStream dataInput = new DataInputStream(input);
+        byte[] header = new byte[MAGIC.length + 1];
+        dataInput.readFully(header);
+        checkHeader(ByteBuffer.wrap(header));
+
+        long payloadSize = 0L;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new InvalidTallyFormatException("Payload size is too big.");
+            }
+            int b = dataInput.read();
+            if (0 > b) {
+                throw new EOFException();
+            }
+            payloadSize |= (long) (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                break;
+            }
+        }
+        if (payloadSize > Integer.MAX_VALUE) {
+            throw new InvalidTallyFormatException("Payload size is too big.");
+        }
+
+        byte[] payload = new byte[(int) payloadSize];
+        dataInput.readFully(payload);
+        return readPayload(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Reads one tally from the buffer, starting at its position, and moves the position after it.
+     *
+     * @throws InvalidTallyFormatException when the bytes are not a tally we can read
+     */
+    public static TallyInterface readFrom(ByteBuffer buffer) {
+        try {
+            checkHeader(buffer);
+            long payloadSize = getVarint(buffer);
+            if (payloadSize > buffer.remaining()) {
+                throw new InvalidTallyFormatException("Payload is truncated.");
+            }
+            int payloadEnd = buffer.position() + (int) payloadSize;
+            TallyInterface tally = readPayload(buffer);
+            if (buffer.position() != payloadEnd) {
+                throw new InvalidTallyFormatException("Payload size does not match its content.");
+            }
+            return tally;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTallyFormatException("Payload is truncated.");
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer) {
+        for (byte magic : MAGIC) {
+            if (magic != buffer.get()) {
+                throw new InvalidTallyFormatException("This is not a tally.");
+            }
+        }
+        int version = buffer.get() & 0xFF;
+        if (VERSION != version) {
+            throw new InvalidTallyFormatException("Unsupported version " + version + ".");
+        }
+    }
+
+    private static TallyInterface readPayload(ByteBuffer buffer) {
+        try {
+            int amountOfProposals = getSize(buffer);
+            BigInteger bigAmountOfJudges = null;
+            long amountOfJudges = getVarint(buffer);
+            if (BIG_ESCAPE == amountOfJudges) {
+                bigAmountOfJudges = getBigInteger(buffer);
+            } else {
+                amountOfJudges = unshiftCount(amountOfJudges);
+            }
+
+            ProposalTallyInterface[] proposalsTallies = new ProposalTallyInterface[amountOfProposals];
+            boolean isLong = (null == bigAmountOfJudges);
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                proposalsTallies[proposal] = readProposalTally(buffer);
+                isLong = isLong && (proposalsTallies[proposal] instanceof LongProposalTally);
+            }
+
+            if (isLong) {
+                LongProposalTally[] longTallies = new LongProposalTally[amountOfProposals];
+                System.arraycopy(proposalsTallies, 0, longTallies, 0, amountOfProposals);
+                return new LongTally(longTallies, amountOfJudges);
+            }
+            return new Tally(
+                    proposalsTallies,
+                    (null != bigAmountOfJudges) ? bigAmountOfJudges : BigInteger.valueOf(amountOfJudges)
+            );
+        } catch (BufferUnderflowException e) {
+            throw new InvalidTallyFormatException("Payload is truncated.");
+        }
+    }
+
+    /**
+     * @return a LongProposalTally, unless one of the counts needs a BigInteger
+     */
+    private static ProposalTallyInterface readProposalTally(ByteBuffer buffer) {
+        int amountOfGrades = getSize(buffer);
+        long[] longTally = new long[amountOfGrades];
+        BigInteger[] bigTally = null;
+        for (int grade = 0; grade < amountOfGrades; grade++) {
+            long count = getVarint(buffer);
+            if (BIG_ESCAPE == count) {
+                if (null == bigTally) {
+                    bigTally = new BigInteger[amountOfGrades];
+                    for (int g = 0; g < grade; g++) {
+                        bigTally[g] = BigInteger.valueOf(longTally[g]);
+                    }
+                }
+                bigTally[grade] = getBigInteger(buffer);
+            } else if (null != bigTally) {
+                bigTally[grade] = BigInteger.valueOf(unshiftCount(count));
+            } else {
+                longTally[grade] = unshiftCount(count);
+            }
+        }
+
+        return (null == bigTally) ? new LongProposalTally(longTally) : new ProposalTally(bigTally);
+    }
+
+    /**
+     * @return the count held by an even varint, since the only odd one is BIG_ESCAPE
+     */
+    private static long unshiftCount(long count) {
+        if (0L != (count & 1L)) {
+            throw new InvalidTallyFormatException("Invalid count " + count + ".");
+        }
+        return count >>> 1;
+    }
+
+    private static int sizeOf(int payloadSize) {
+        return MAGIC.length + 1 + sizeOfVarint(payloadSize) + payloadSize;
+    }
+
+    private static int sizeOfPayload(ProposalTallyInterface[] proposalsTallies, BigInteger amountOfJudges) {
+        long size = sizeOfVarint(proposalsTallies.length) + sizeOfCount(amountOfJudges);
+        for (ProposalTallyInterface proposalTally : proposalsTallies) {
+            if (proposalTally instanceof LongProposalTallyInterface) {
+                LongProposalTallyInterface longTally = (LongProposalTallyInterface) proposalTally;
+                int amountOfGrades = longTally.countGrades();
+                size += sizeOfVarint(amountOfGrades);
+                for (int grade = 0; grade < amountOfGrades; grade++) {
+                    size += sizeOfCount(longTally.getLongTally(grade));
+                }
+            } else {
+                BigInteger[] gradesTallies = proposalTally.getTally();
+                size += sizeOfVarint(gradesTallies.length);
+                for (BigInteger gradeTally : gradesTallies) {
+                    size += sizeOfCount(gradeTally);
+                }
+            }
+        }
+        return Math.toIntExact(size);
+    }
+
+    private static int sizeOfVarint(long value) {
+        int size = 1;
+        while (0 != (value >>>= 7)) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int sizeOfCount(long count) {
+        if (0 > count) {
+            return sizeOfCount(BigInteger.valueOf(count));
+        }
+        return sizeOfVarint(count << 1);
+    }
+
+    private static int sizeOfCount(BigInteger count) {
+        if (0 <= count.signum() && count.bitLength() < Long.SIZE) {
+            return sizeOfCount(count.longValue());
+        }
+        int length = count.toByteArray().length;
+        return sizeOfVarint(BIG_ESCAPE) + sizeOfVarint(length) + length;
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while (0 != (value & ~0x7FL)) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static void putCount(ByteBuffer buffer, long count) {
+        if (0 > count) {
+            putCount(buffer, BigInteger.valueOf(count));
+            return;
+        }
+        putVarint(buffer, count << 1);
+    }
+
+    private static void putCount(ByteBuffer buffer, BigInteger count) {
+        if (0 <= count.signum() && count.bitLength() < Long.SIZE) {
+            putCount(buffer, count.longValue());
+            return;
+        }
+        byte[] bytes = count.toByteArray();
+        putVarint(buffer, BIG_ESCAPE);
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                return value;
+            }
+        }
+        throw new InvalidTallyFormatException("Varint is too long.");
+    }
+
+    /**
+     * A varint that we'll use to allocate an array, so it'd better be reasonable.
+     */
+    private static int getSize(ByteBuffer buffer) {
+        long size = getVarint(buffer);
+        if (size > buffer.remaining()) {
+            throw new InvalidTallyFormatException("Size " + size + " exceeds the payload.");
+        }
+        return (int) size;
+    }
+
+    private static BigInteger getBigInteger(ByteBuffer buffer) {
+        byte[] bytes = new byte[getSize(buffer)];
+        if (0 == bytes.length) {
+            throw new InvalidTallyFormatException("Empty BigInteger.");
+        }
+        buffer.get(bytes);
+        return new BigInteger(bytes);
+    }
+}
@@ -0,0 +1,60 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbsoluteRankCounterTest {
+
+    @Test
+    @DisplayName("Test absolute ranks against a poll of all the merit profiles")
+    void testAgainstEnumeration() throws Throwable {
+        for (int amountOfGrades = 1; amountOfGrades <= 5; amountOfGrades++) {
+            for (int amountOfJudges = 0; amountOfJudges <= 7; amountOfJudges++) {
+                ProposalTallyInterface[] all = new ProposalTallyFactory(amountOfGrades, amountOfJudges).generateAll();
+                for (boolean favorContestation : new boolean[]{true, false}) {
+                    AbsoluteRankCounter counter = new AbsoluteRankCounter(amountOfGrades, amountOfJudges, favorContestation);
+                    assertEquals(BigInteger.valueOf(all.length), counter.countProfiles());
+
+                    ResultInterface result = new MajorityJudgmentDeliberator(favorContestation).deliberate(
+                            new Tally(all, amountOfJudges)
+                    );
+                    for (int i = 0; i < all.length; i++) {
+                        assertEquals(
+                                BigInteger.valueOf(result.getProposalResults()[i].getRank()),
+                                counter.getAbsoluteRank(all[i]),
+                                amountOfGrades + " grades, " + amountOfJudges + " judges, profile #" + i
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test absolute ranks with thousands of judges")
+    void testThousandsOfJudges() {
+        AbsoluteRankCounter counter = new AbsoluteRankCounter(12, 5000);
+
+        BigInteger[] best = new BigInteger[12];
+        BigInteger[] worst = new BigInteger[12];
+        BigInteger[] middling = new BigInteger[12];
+        for (int grade = 0; grade < 12; grade++) {
+            best[grade] = worst[grade] = BigInteger.ZERO;
+            middling[grade] = BigInteger.valueOf(grade < 8 ? 625 : 0);
+        }
+        best[11] = worst[0] = BigInteger.valueOf(5000);
+
+        assertEquals(BigInteger.ONE, counter.getAbsoluteRank(new ProposalTally(best)));
+        assertEquals(counter.countProfiles(), counter.getAbsoluteRank(new ProposalTally(worst)));
+        assertEquals(1.0, counter.getAffineMerit(new ProposalTally(best)));
+        assertEquals(0.0, counter.getAffineMerit(new ProposalTally(worst)));
+        double affineMerit = counter.getAffineMerit(new ProposalTally(middling));
+        assertTrue(0.0 < affineMerit && affineMerit < 1.0);
+
+        assertThrows(IllegalArgumentException.class, () -> counter.getAbsoluteRank(new ProposalTally(new Integer[]{1, 2})));
+    }
+}
@@ -0,0 +1,88 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BallotFileImporterTest {
+
+    @Test
+    @DisplayName("Test importing ballots from a binary file")
+    void testImportFile(@TempDir Path directory) throws Exception {
+        int amountOfProposals = 3;
+        int amountOfGrades = 6;
+        int amountOfBallots = 1000;
+        Random random = new Random(3);
+        int[][] ballots = new int[amountOfBallots][amountOfProposals];
+        for (int[] ballot : ballots) {
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                ballot[proposal] = random.nextInt(amountOfGrades);
+            }
+        }
+        CollectedTally expected = new CollectedTally(amountOfProposals, amountOfGrades);
+        expected.collectBallots(ballots);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int bytesPerGrade : new int[]{1, 2, 4}) {
+                Path path = directory.resolve("ballots-" + bytesPerGrade + ".bin");
+                ByteBuffer buffer = ByteBuffer.allocate(amountOfBallots * amountOfProposals * bytesPerGrade);
+                for (int[] ballot : ballots) {
+                    for (int grade : ballot) {
+                        if (1 == bytesPerGrade) {
+                            buffer.put((byte) grade);
+                        } else if (2 == bytesPerGrade) {
+                            buffer.putShort((short) grade);
+                        } else {
+                            buffer.putInt(grade);
+                        }
+                    }
+                }
+                Files.write(path, buffer.array());
+
+                BallotFileImporter importer = new BallotFileImporter(amountOfProposals, amountOfGrades, bytesPerGrade);
+                importer.maxSegmentSize = 100; // lots of segments
+                for (ForkJoinPool maybePool : new ForkJoinPool[]{null, pool}) {
+                    LongTally tally = importer.importFile(path, maybePool);
+                    assertEquals(amountOfBallots, tally.getLongAmountOfJudges());
+                    for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                        assertArrayEquals(
+                                expected.getProposalsTallies()[proposal].getTally(),
+                                tally.getProposalsTallies()[proposal].getTally()
+                        );
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Fail on malformed ballot files")
+    void testFailureOnMalformedFiles(@TempDir Path directory) throws Exception {
+        BallotFileImporter importer = new BallotFileImporter(2, 3);
+
+        Path truncated = directory.resolve("truncated.bin");
+        Files.write(truncated, new byte[]{0, 1, 2});
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile(truncated));
+
+        Path outOfBounds = directory.resolve("out-of-bounds.bin");
+        Files.write(outOfBounds, new byte[]{0, 1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile(outOfBounds));
+
+        Path negative = directory.resolve("negative.bin");
+        Files.write(negative, new byte[]{0, 1, (byte) -1, 0});
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile(negative));
+
+        assertThrows(IllegalArgumentException.class, () -> new BallotFileImporter(2, 3, 3));
+    }
+}
@@ -2,6 +2,16 @@ package fr.mieuxvoter.mj;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,4 +54,289 @@ class CollectedTallyTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test collecting concurrently")
+    void testConcurrentCollect() throws Exception {
+        int amountOfProposals = 5;
+        int amountOfGrades = 4;
+        int amountOfThreads = 8;
+        int amountOfBallotsPerThread = 2000;
+        ConcurrentCollectedTally tally = new ConcurrentCollectedTally(amountOfProposals, amountOfGrades);
+
+        Thread[] threads = new Thread[amountOfThreads];
+        for (int t = 0; t < amountOfThreads; t++) {
+            threads[t] = new Thread(() -> {
+                for (int ballot = 0; ballot < amountOfBallotsPerThread; ballot++) {
+                    for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                        tally.collect(proposal, (ballot + proposal) % amountOfGrades);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        // Snapshots taken along the way must be deliberable, and never lose judgments
+        long previousAmountOfJudges = 0L;
+        for (int i = 0; i < 10; i++) {
+            LongTally snapshot = tally.snapshot();
+            assertTrue(previousAmountOfJudges <= snapshot.getLongAmountOfJudges());
+            previousAmountOfJudges = snapshot.getLongAmountOfJudges();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LongTally snapshot = tally.snapshot();
+        assertEquals(amountOfThreads * amountOfBallotsPerThread, snapshot.getLongAmountOfJudges());
+        for (LongProposalTally proposalTally : snapshot.getProposalsTallies()) {
+            assertEquals(amountOfThreads * amountOfBallotsPerThread, proposalTally.getLongAmountOfJudgments());
+            for (long gradeTally : proposalTally.getLongTally()) {
+                assertEquals(amountOfThreads * amountOfBallotsPerThread / amountOfGrades, gradeTally);
+            }
+        }
+        new MajorityJudgmentDeliberator().deliberate(snapshot);
+
+        assertThrows(IllegalArgumentException.class, () -> tally.collect(amountOfProposals, 0));
+        assertThrows(IllegalArgumentException.class, () -> tally.collect(0, -1));
+    }
+
+    @Test
+    @DisplayName("Test deliberating while collecting concurrently")
+    void testDeliberateWhileCollecting() {
+        // Another ballot comes in right after each snapshot
+        ConcurrentCollectedTally tally = new ConcurrentCollectedTally(3, 4) {
+            @Override
+            public LongTally snapshot() {
+                LongTally snapshot = super.snapshot();
+                collectBallot(new int[]{3, 1, 2});
+                return snapshot;
+            }
+        };
+        tally.collectBallots(new int[][]{{3, 0, 1}, {3, 2, 2}, {3, 3, 0}});
+
+        // Each deliberation reads one snapshot, whose amount of judges agrees with its tallies
+        MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator();
+        for (ResultInterface result : new ResultInterface[]{mj.deliberate(tally), mj.deliberateLazily(tally)}) {
+            ProposalResultInterface best = result.getProposalResults()[0];
+            BigInteger amountOfJudges = best.getAnalysis().getTotalSize();
+            assertEquals(BigInteger.valueOf(3).multiply(amountOfJudges.pow(3)), best.getMerit());
+            assertEquals(1, best.getRank());
+        }
+    }
+
+    @Test
+    @DisplayName("Test collecting batches of ballots")
+    void testCollectBallots() {
+        int amountOfProposals = 3;
+        int amountOfGrades = 5;
+        int amountOfBallots = BallotHistogram.PARALLEL_THRESHOLD + 123;
+        Random random = new Random(9);
+        int[][] ballots = new int[amountOfBallots][amountOfProposals];
+        int[][] columns = new int[amountOfProposals][amountOfBallots];
+        for (int ballot = 0; ballot < amountOfBallots; ballot++) {
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                int grade = random.nextInt(amountOfGrades);
+                ballots[ballot][proposal] = grade;
+                columns[proposal][ballot] = grade;
+            }
+        }
+
+        CollectedTally expected = new CollectedTally(amountOfProposals, amountOfGrades);
+        for (int[] ballot : ballots) {
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                expected.collect(proposal, ballot[proposal]);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            CollectedTally[] actuals = new CollectedTally[4];
+            for (int i = 0; i < actuals.length; i++) {
+                actuals[i] = new CollectedTally(amountOfProposals, amountOfGrades);
+            }
+            actuals[0].collectBallots(ballots);
+            actuals[1].collectBallots(ballots, pool);
+            actuals[2].collectColumns(columns);
+            actuals[3].collectColumns(columns, pool);
+
+            for (CollectedTally actual : actuals) {
+                for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                    assertArrayEquals(
+                            expected.getProposalsTallies()[proposal].getTally(),
+                            actual.getProposalsTallies()[proposal].getTally()
+                    );
+                }
+            }
+
+            ConcurrentCollectedTally concurrent = new ConcurrentCollectedTally(amountOfProposals, amountOfGrades);
+            concurrent.collectBallots(ballots, pool);
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                assertArrayEquals(
+                        expected.getProposalsTallies()[proposal].getTally(),
+                        concurrent.getProposalsTallies()[proposal].getTally()
+                );
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Invalid batches are not collected at all
+        CollectedTally tally = new CollectedTally(amountOfProposals, amountOfGrades);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> tally.collectBallots(new int[][]{{0, 1, 2}, {0, 1, amountOfGrades}})
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> tally.collectBallots(new int[][]{{0, 1, 2}, {-1, 1, 2}})
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> tally.collectBallot(new int[]{0, 1}) // missing a proposal
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> tally.collectColumns(new int[][]{{0, 1}, {0, 1}, {0}}) // unbalanced columns
+        );
+        assertEquals(BigInteger.ZERO, tally.getAmountOfJudges());
+    }
+
+    @Test
+    @DisplayName("Test merging tallies collected on shards")
+    void testMergeShards() {
+        int amountOfProposals = 4;
+        int amountOfGrades = 6;
+        int amountOfShards = 13;
+        Random random = new Random(5);
+        CollectedTally whole = new CollectedTally(amountOfProposals, amountOfGrades);
+        TallyInterface[] shards = new TallyInterface[amountOfShards];
+        for (int s = 0; s < amountOfShards; s++) {
+            int[][] ballots = new int[10 + s][amountOfProposals];
+            for (int[] ballot : ballots) {
+                for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                    ballot[proposal] = random.nextInt(amountOfGrades);
+                }
+            }
+            whole.collectBallots(ballots);
+            if (0 == s % 2) {
+                CollectedTally shard = new CollectedTally(amountOfProposals, amountOfGrades);
+                shard.collectBallots(ballots);
+                shards[s] = shard;
+            } else {
+                ConcurrentCollectedTally shard = new ConcurrentCollectedTally(amountOfProposals, amountOfGrades);
+                shard.collectBallots(ballots);
+                shards[s] = shard.snapshot();
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (TallyInterface merged : new TallyInterface[]{Tally.merge(shards), Tally.merge(pool, shards)}) {
+                assertEquals(whole.getAmountOfJudges(), merged.getAmountOfJudges());
+                for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                    assertArrayEquals(
+                            whole.getProposalsTallies()[proposal].getTally(),
+                            merged.getProposalsTallies()[proposal].getTally()
+                    );
+                }
+                new MajorityJudgmentDeliberator().deliberate(merged);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Sums overflowing a long fall back to BigIntegers
+        LongTally huge = new LongTally(new long[][]{{Long.MAX_VALUE, 0L}}, Long.MAX_VALUE);
+        TallyInterface merged = Tally.merge(huge, huge);
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1), merged.getAmountOfJudges());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1), merged.getProposalsTallies()[0].getTally()[0]);
+
+        // Shards still collecting are read from one snapshot each
+        ConcurrentCollectedTally live = new ConcurrentCollectedTally(2, 3) {
+            @Override
+            public LongTally snapshot() {
+                LongTally snapshot = super.snapshot();
+                collectBallot(new int[]{0, 2});
+                return snapshot;
+            }
+        };
+        live.collectBallot(new int[]{1, 1});
+        TallyInterface mergedLive = Tally.merge(live, new CollectedTally(2, 3));
+        assertEquals(BigInteger.ONE, mergedLive.getAmountOfJudges());
+        assertEquals(BigInteger.ONE, mergedLive.getProposalsTallies()[0].getAmountOfJudgments());
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Tally.merge(new CollectedTally(2, 3), new CollectedTally(2, 4))
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Tally.merge(new CollectedTally(2, 3), new CollectedTally(3, 3))
+        );
+    }
+
+    @Test
+    @DisplayName("Test recovering a durable tally after a crash")
+    void testDurableRecovery(@TempDir Path directory) throws Exception {
+        int amountOfProposals = 4;
+        int amountOfGrades = 5;
+        Random random = new Random(17);
+        CollectedTally expected = new CollectedTally(amountOfProposals, amountOfGrades);
+
+        DurableCollectedTally durable = new DurableCollectedTally(directory, amountOfProposals, amountOfGrades);
+        durable.setGroupCommitSize(64);
+        durable.setCheckpointInterval(1000); // a few checkpoints along the way
+        for (int i = 0; i < 3000; i++) {
+            if (0 == i % 3) {
+                int[] ballot = new int[amountOfProposals];
+                for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                    ballot[proposal] = random.nextInt(amountOfGrades);
+                }
+                durable.collectBallot(ballot);
+                expected.collectBallot(ballot);
+            } else {
+                int proposal = random.nextInt(amountOfProposals);
+                int grade = random.nextInt(amountOfGrades);
+                durable.collect(proposal, grade);
+                expected.collect(proposal, grade);
+            }
+        }
+        durable.flush();
+        // Crash!  Without closing anything, and with a torn frame at the end of the log
+        try (Stream<Path> files = Files.list(directory)) {
+            Path log = files
+                    .filter(p -> p.getFileName().toString().startsWith(DurableCollectedTally.LOG_FILE_PREFIX))
+                    .findFirst()
+                    .orElseThrow(AssertionError::new);
+            byte[] bytes = Files.readAllBytes(log);
+            int end = 0;
+            while (0 != ByteBuffer.wrap(bytes, end, 4).getInt()) {
+                end += 8 + ByteBuffer.wrap(bytes, end, 4).getInt();
+            }
+            ByteBuffer torn = ByteBuffer.wrap(bytes, end, 12);
+            torn.putInt(4).putInt(12345).putInt(42);
+            Files.write(log, bytes, StandardOpenOption.WRITE);
+        }
+
+        DurableCollectedTally recovered = new DurableCollectedTally(directory, amountOfProposals, amountOfGrades);
+        for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+            assertArrayEquals(
+                    expected.getProposalsTallies()[proposal].getTally(),
+                    recovered.getProposalsTallies()[proposal].getTally()
+            );
+        }
+
+        // And it goes on
+        recovered.collect(0, 0);
+        recovered.close();
+        expected.collect(0, 0);
+        DurableCollectedTally reopened = new DurableCollectedTally(directory, amountOfProposals, amountOfGrades);
+        assertArrayEquals(expected.getProposalsTallies()[0].getTally(), reopened.getProposalsTallies()[0].getTally());
+        reopened.close();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DurableCollectedTally(directory, amountOfProposals + 1, amountOfGrades)
+        );
+    }
+}
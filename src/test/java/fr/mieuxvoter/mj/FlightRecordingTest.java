@@ -0,0 +1,107 @@
+package fr.mieuxvoter.mj;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingTest {
+
+    @Test
+    @DisplayName("Test events recorded by the Java Flight Recorder")
+    void testEvents() throws Throwable {
+        assertTrue(FlightRecording.isAvailable());
+
+        Path file = Files.createTempFile("majority-judgment", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : new String[]{"Deliberation", "Normalization", "DefaultGrade", "Collect"}) {
+                recording.enable("fr.mieuxvoter.mj." + event).withoutThreshold();
+            }
+            recording.start();
+
+            MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator();
+            mj.deliberate(new PollGenerator(PollGenerator.Distribution.UNIFORM, 1L).generate(30, 7, 1000L));
+            mj.deliberate(new NormalizedTally(new ProposalTallyInterface[]{
+                    new ProposalTally(new Integer[]{1, 2, 3}),
+                    new ProposalTally(new Integer[]{4, 5, 6}),
+            }));
+            new StaticDefaultTally(new ProposalTallyInterface[]{
+                    new ProposalTally(new Integer[]{1, 2, 3}),
+            }, 10, 0);
+
+            CollectedTally tally = new CollectedTally(2, 3);
+            tally.collectBallots(new int[][]{{0, 1}, {2, 2}, {1, 0}});
+            for (int judgment = 0; judgment < CollectedTally.COLLECT_SAMPLE_SIZE + 10; judgment++) {
+                tally.collect(judgment % 2, judgment % 3);
+            }
+            mj.deliberate(tally);
+            for (int judgment = 0; judgment < 5; judgment++) {
+                tally.collect(judgment % 2, judgment % 3);
+            }
+            tally.finishCollectSample();
+
+            CollectedTally shortTally = new CollectedTally(2, 3);
+            shortTally.collect(0, 1);
+            shortTally.collect(1, 2);
+            mj.deliberate(shortTally);
+            shortTally.finishCollectSample();
+            shortTally.finishCollectSample();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        List<RecordedEvent> deliberations = filter(events, "Deliberation");
+        assertEquals(4, deliberations.size());
+        assertEquals(30, deliberations.get(0).getInt("amountOfProposals"));
+        assertEquals(7, deliberations.get(0).getInt("amountOfGrades"));
+        assertEquals(1000L, deliberations.get(0).getLong("amountOfJudges"));
+        assertEquals("PRIMITIVE", deliberations.get(0).getString("path"));
+        assertEquals(30L, deliberations.get(1).getLong("amountOfJudges"));
+
+        List<RecordedEvent> normalizations = filter(events, "Normalization");
+        assertEquals(1, normalizations.size());
+        assertEquals(5, normalizations.get(0).getInt("lcmBitLength")); // 30
+        assertTrue(normalizations.get(0).getBoolean("primitive"));
+
+        List<RecordedEvent> defaults = filter(events, "DefaultGrade");
+        assertEquals(1, defaults.size());
+        assertEquals("StaticDefaultTally", defaults.get(0).getString("tally"));
+        assertEquals(10L, defaults.get(0).getLong("amountOfJudges"));
+
+        // Samples of single judgments end once full, or when finished, but not when the tally is read
+        List<RecordedEvent> collects = filter(events, "Collect");
+        assertEquals(4, collects.size());
+        assertTrue(collects.get(0).getBoolean("batch"));
+        assertEquals(6L, collects.get(0).getLong("amountOfJudgments"));
+        assertFalse(collects.get(1).getBoolean("batch"));
+        assertEquals(CollectedTally.COLLECT_SAMPLE_SIZE, collects.get(1).getLong("amountOfJudgments"));
+        assertEquals(15L, collects.get(2).getLong("amountOfJudgments"));
+        assertEquals(2L, collects.get(3).getLong("amountOfJudgments"));
+
+        // The collect time leaves out the deliberation in the middle of the sample
+        for (RecordedEvent collect : collects) {
+            assertTrue(0L < collect.getLong("collectTime"));
+            assertTrue(collect.getDuration().toNanos() >= collect.getLong("collectTime"));
+        }
+        assertTrue(collects.get(2).getDuration().toNanos() > 2 * collects.get(2).getLong("collectTime"));
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals("fr.mieuxvoter.mj." + name))
+                .sorted((e0, e1) -> e0.getStartTime().compareTo(e1.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
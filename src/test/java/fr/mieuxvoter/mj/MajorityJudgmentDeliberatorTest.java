@@ -17,7 +17,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -185,6 +189,40 @@ class MajorityJudgmentDeliberatorTest {
 
     }
 
+    @Test
+    @DisplayName("Test primitive tallies yield the same results as BigInteger tallies")
+    void testPrimitiveTallies() throws Throwable {
+        Long[][] rawTallies = new Long[][]{
+                {5L, 2L, 4L, 2L, 4L, 1L, 5L},
+                {3L, 2L, 7L, 0L, 4L, 5L, 2L},
+                {6L, 5L, 3L, 0L, 5L, 1L, 3L},
+                {2L, 2L, 4L, 4L, 5L, 2L, 4L},
+                {0L, 0L, 0L, 23L, 0L, 0L, 0L},
+        };
+        // Merits of these will overflow a long, and fall back to BigIntegers
+        Long[][] rawBigTallies = new Long[][]{
+                {1_000_000_000L, 1_000_000_000L, 1_000_000_000L, 1_000_000_000L,
+                        1_000_000_000L, 1_000_000_000L, 1_000_000_000L},
+                {7_000_000_000L, 0L, 0L, 0L, 0L, 0L, 0L},
+                {0L, 0L, 0L, 0L, 0L, 0L, 7_000_000_000L},
+        };
+
+        for (boolean favorContestation : new boolean[]{true, false}) {
+            for (Long[][] raw : new Long[][][]{rawTallies, rawBigTallies}) {
+                ProposalTallyInterface[] bigTallies = new ProposalTallyInterface[raw.length];
+                LongProposalTally[] longTallies = new LongProposalTally[raw.length];
+                for (int i = 0; i < raw.length; i++) {
+                    bigTallies[i] = new ProposalTally(raw[i]);
+                    longTallies[i] = new LongProposalTally(raw[i]);
+                }
+
+                DeliberatorInterface mj = new MajorityJudgmentDeliberator(favorContestation);
+                ResultInterface expected = mj.deliberate(new Tally(bigTallies));
+                assertSameResult(expected, mj.deliberate(new LongTally(longTallies)));
+            }
+        }
+    }
+
     @Test
     @DisplayName("Test the collect demo usage of the README")
     void testDemoUsageCollectedTally() throws Throwable {
@@ -403,6 +441,91 @@ class MajorityJudgmentDeliberatorTest {
         }
     }
 
+    @Test
+    @DisplayName("Test normalization on a pool")
+    void testParallelNormalization() throws Throwable {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int amountOfProposals = primes.length;
+            ProposalTallyInterface[] primeTallies = new ProposalTallyInterface[amountOfProposals];
+            ProposalTallyInterface[] closeTallies = new ProposalTallyInterface[amountOfProposals];
+            BigInteger lcm = BigInteger.ONE;
+            for (int i = 0; i < amountOfProposals; i++) {
+                primeTallies[i] = new ProposalTally(new Integer[]{primes[i] - 1, 1, 0});
+                closeTallies[i] = new LongProposalTally(new long[]{95 + i % 3, 2, 3 + i % 2});
+                lcm = NormalizedTally.lcm(lcm, BigInteger.valueOf(primes[i]));
+            }
+
+            // The LCM of the primes overflows, and is reduced on BigIntegers
+            NormalizedTally sequential = new NormalizedTally(primeTallies);
+            NormalizedTally parallel = new NormalizedTally(primeTallies, pool);
+            assertEquals(lcm, sequential.getAmountOfJudges());
+            assertEquals(lcm, parallel.getAmountOfJudges());
+            for (int i = 0; i < amountOfProposals; i++) {
+                assertArrayEquals(sequential.getProposalsTallies()[i].getTally(), parallel.getProposalsTallies()[i].getTally());
+            }
+
+            // Judgments counts only vary a little, and the LCM fits in a long
+            NormalizedTally close = new NormalizedTally(closeTallies, pool);
+            assertEquals(BigInteger.valueOf(100 * 101 * 51 * 103), close.getAmountOfJudges());
+            for (int i = 0; i < amountOfProposals; i++) {
+                ProposalTallyInterface normalizedTally = close.getProposalsTallies()[i];
+                assertTrue(normalizedTally instanceof LongProposalTally);
+                assertEquals(close.getAmountOfJudges(), normalizedTally.getAmountOfJudgments());
+            }
+            assertSameResult(
+                    new MajorityJudgmentDeliberator().deliberate(new RationalNormalizedTally(closeTallies)),
+                    new MajorityJudgmentDeliberator().deliberate(close)
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test rational normalization, without the LCM")
+    void testRationalNormalization() throws Throwable {
+        int amountOfProposals = primes.length; // 1437
+        ProposalTallyInterface[] tallies = new ProposalTallyInterface[amountOfProposals];
+        for (int i = 0; i < amountOfProposals; i++) {
+            Integer prime = primes[i % primes.length];
+            tallies[i] = new ProposalTally(new Integer[]{prime - 1, 1, 0});
+        }
+        RationalNormalizedTally tally = new RationalNormalizedTally(tallies);
+
+        ResultInterface result = new MajorityJudgmentDeliberator().deliberate(tally);
+
+        for (int i = 0; i < amountOfProposals; i++) {
+            assertEquals(1 + i, result.getProposalResults()[i].getRank(), "Rank of Proposal #" + i);
+        }
+        assertFalse(tally.isNormalized());
+
+        Random random = new Random(15);
+        for (int poll = 0; poll < 40; poll++) {
+            int amountOfGrades = 1 + random.nextInt(6);
+            Integer[][] gradesTallies = new Integer[1 + random.nextInt(30)][amountOfGrades];
+            ProposalTallyInterface[] mixedTallies = new ProposalTallyInterface[gradesTallies.length];
+            for (int i = 0; i < mixedTallies.length; i++) {
+                for (int g = 0; g < amountOfGrades; g++) {
+                    // Most proposals are scaled copies of the previous one, and must tie with it
+                    gradesTallies[i][g] = (0 == i % 5) ? random.nextInt(4) : 3 * gradesTallies[i - 1][g];
+                }
+                if (0 == i % 5) {
+                    gradesTallies[i][random.nextInt(amountOfGrades)] += 1; // no empty tally
+                }
+                mixedTallies[i] = new ProposalTally(gradesTallies[i]);
+            }
+
+            for (boolean favorContestation : new boolean[]{true, false}) {
+                MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator(favorContestation);
+                assertSameResult(
+                        mj.deliberate(new NormalizedTally(mixedTallies)),
+                        mj.deliberate(new RationalNormalizedTally(mixedTallies))
+                );
+            }
+        }
+    }
+
     @Test
     @DisplayName("Test favoring adhesion")
     void testFavoringAdhesion() throws Exception {
@@ -454,6 +577,252 @@ class MajorityJudgmentDeliberatorTest {
     }
 
 
+    @Test
+    @DisplayName("Test legacy score")
+    void testLegacyScore() throws Exception {
+        DeliberatorInterface mj = new MajorityJudgmentDeliberator();
+        TallyInterface tally =
+                new Tally(
+                        new ProposalTallyInterface[]{
+                                new ProposalTally(new Integer[]{1, 0, 2}),
+                                new ProposalTally(new Integer[]{0, 2, 1}),
+                        },
+                        3);
+
+        ResultInterface result = mj.deliberate(tally);
+
+        assertEquals("2_02/0_03/0_03", result.getProposalResults()[0].getScore());
+        assertEquals("1_04/2_03/0_03", result.getProposalResults()[1].getScore());
+    }
+
+    @Test
+    @DisplayName("Test scores wider than 64 bits")
+    void testWideScore() throws Exception {
+        BigInteger lots = BigInteger.ONE.shiftLeft(70);
+        DeliberatorInterface mj = new MajorityJudgmentDeliberator();
+        TallyInterface tally =
+                new Tally(
+                        new ProposalTallyInterface[]{
+                                new ProposalTally(new BigInteger[]{lots, BigInteger.ONE, lots}),
+                                new ProposalTally(new BigInteger[]{lots.add(BigInteger.ONE), BigInteger.ZERO, lots}),
+                                new ProposalTally(new BigInteger[]{lots, lots.add(BigInteger.ONE), BigInteger.ZERO}),
+                        });
+
+        ResultInterface result = mj.deliberate(tally);
+
+        assertEquals(1, result.getProposalResults()[0].getRank());
+        assertEquals(3, result.getProposalResults()[1].getRank());
+        assertEquals(2, result.getProposalResults()[2].getRank());
+        BigInteger amountOfJudges = lots.shiftLeft(1).add(BigInteger.ONE);
+        String groupFormat = "%0" + (amountOfJudges.toString().length() + 1) + "d";
+        assertEquals(
+                "1_" + String.format(groupFormat, amountOfJudges.subtract(lots))
+                        + "/0_" + String.format(groupFormat, amountOfJudges.add(lots))
+                        + "/2_" + String.format(groupFormat, amountOfJudges),
+                result.getProposalResults()[0].getScore()
+        );
+    }
+
+    @Test
+    @DisplayName("Test parallel deliberation")
+    void testParallelDeliberation() throws Throwable {
+        int amountOfProposals = MajorityJudgmentDeliberator.PARALLEL_SORT_THRESHOLD + 1000;
+        TallyInterface tally = new PollGenerator(PollGenerator.Distribution.UNIFORM, 42L)
+                .generate(amountOfProposals, 5, 20L);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSameResult(
+                    new MajorityJudgmentDeliberator(true, false).deliberate(tally),
+                    new MajorityJudgmentDeliberator(true, false, pool).deliberate(tally)
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test top-K deliberation")
+    void testTopKDeliberation() throws Throwable {
+        int amountOfProposals = 200;
+        TallyInterface tally = new PollGenerator(PollGenerator.Distribution.UNIFORM, 7L)
+                .generate(amountOfProposals, 4, 6L); // few judges, lots of ties
+
+        MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator();
+        ResultInterface full = mj.deliberate(tally);
+        for (int k : new int[]{1, 2, 3, 10, 50, amountOfProposals, amountOfProposals + 1}) {
+            ResultInterface top = mj.deliberateTopK(tally, k);
+            ProposalResultInterface[] ranked = top.getProposalResultsRanked();
+            assertTrue(ranked.length >= Math.min(k, amountOfProposals), "Enough winners for k=" + k);
+
+            for (int i = 0; i < ranked.length; i++) {
+                ProposalResultInterface expected = full.getProposalResultsRanked()[i];
+                assertEquals(expected.getIndex(), ranked[i].getIndex(), "Winner #" + i + " for k=" + k);
+                assertEquals(expected.getRank(), ranked[i].getRank());
+                assertEquals(expected.getScore(), ranked[i].getScore());
+                assertEquals(expected.getMerit(), ranked[i].getMerit());
+                assertEquals(expected.getAffineMerit(), ranked[i].getAffineMerit());
+            }
+            if (ranked.length < amountOfProposals) {
+                // Nobody left out shares the score of the last winner
+                assertNotEquals(
+                        ranked[ranked.length - 1].getScore(),
+                        full.getProposalResultsRanked()[ranked.length].getScore()
+                );
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> mj.deliberateTopK(tally, 0));
+    }
+
+    @Test
+    @DisplayName("Test lazy deliberation")
+    void testLazyDeliberation() throws Throwable {
+        TallyInterface tally = new PollGenerator(PollGenerator.Distribution.UNIFORM, 1337L).generate(50, 7, 30L);
+
+        MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator(false);
+        assertSameResult(mj.deliberate(tally), mj.deliberateLazily(tally));
+
+        // Merits are computed on the tally that was ranked, even if it kept collecting since
+        CollectedTally collected = new CollectedTally(2, 3);
+        collected.collectBallots(new int[][]{{0, 2}, {1, 2}, {2, 0}});
+        ResultInterface expected = mj.deliberate(collected);
+        ResultInterface lazy = mj.deliberateLazily(collected);
+        collected.collectBallots(new int[][]{{0, 0}, {0, 0}, {0, 0}});
+        assertSameResult(expected, lazy);
+    }
+
+    @Test
+    @DisplayName("Test incremental deliberation")
+    void testIncrementalDeliberation() throws Throwable {
+        int amountOfProposals = 40;
+        int amountOfGrades = 5;
+        Random random = new Random(11);
+        MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator();
+
+        IncrementalDeliberator balanced = new IncrementalDeliberator(amountOfProposals, amountOfGrades);
+        IncrementalDeliberator defaulted = new IncrementalDeliberator(amountOfProposals, amountOfGrades, 0);
+        ResultInterface previousExpected = null;
+        ResultInterface previous = null;
+        for (int round = 0; round < 12; round++) {
+            // New ballots change the amount of judges, and everything is computed again
+            int[] ballot = new int[amountOfProposals];
+            for (int proposal = 0; proposal < amountOfProposals; proposal++) {
+                ballot[proposal] = random.nextInt(amountOfGrades);
+            }
+            balanced.collectBallot(ballot);
+            assertSameResult(mj.deliberate(balanced.toTally()), balanced.deliberate());
+
+            // A few judgments on a few proposals only re-rank those
+            defaulted.setAmountOfJudges(round < 6 ? 30 : 30 + round);
+            for (int judgment = 0; judgment < 3; judgment++) {
+                defaulted.collect(random.nextInt(amountOfProposals), random.nextInt(amountOfGrades));
+            }
+            ResultInterface expected = mj.deliberate(defaulted.toTally());
+            ResultInterface actual = defaulted.deliberate();
+            assertSameResult(expected, actual);
+
+            // Results of previous deliberations do not change
+            if (null != previous) {
+                assertSameResult(previousExpected, previous);
+            }
+            previousExpected = expected;
+            previous = actual;
+        }
+
+        balanced.collect(0, 0);
+        assertThrows(UnbalancedTallyException.class, balanced::deliberate);
+        defaulted.setAmountOfJudges(0);
+        assertThrows(UnbalancedTallyException.class, defaulted::deliberate);
+    }
+
+    @Test
+    @DisplayName("Test listening to the phases of deliberation")
+    void testDeliberationListener() throws Throwable {
+        List<DeliberationListenerInterface.Phase> phases = new ArrayList<>();
+        List<DeliberationListenerInterface.Path> paths = new ArrayList<>();
+        DeliberationListenerInterface listener = new DeliberationListenerInterface() {
+            @Override
+            public void onPhase(Phase phase, int count, long nanoseconds, long allocatedBytes) {
+                assertEquals(60, count);
+                assertTrue(0L <= nanoseconds);
+                assertTrue(-1L <= allocatedBytes);
+                phases.add(phase);
+            }
+
+            @Override
+            public void onDeliberation(Path path, int amountOfProposals, long nanoseconds, long allocatedBytes) {
+                assertEquals(60, amountOfProposals);
+                assertTrue(0L <= nanoseconds);
+                paths.add(path);
+            }
+        };
+
+        // Scaled up beyond longs, the ranks stay the same
+        LongTally tally = new PollGenerator(PollGenerator.Distribution.NEAR_TIE, 5L).generate(60, 7, 1000L);
+        BigInteger scale = BigInteger.ONE.shiftLeft(70);
+        ProposalTallyInterface[] bigTallies = new ProposalTallyInterface[60];
+        ProposalTallyInterface[] mixedTallies = new ProposalTallyInterface[60];
+        for (int proposal = 0; proposal < 60; proposal++) {
+            BigInteger[] bigTally = tally.getProposalsTallies()[proposal].getTally();
+            for (int grade = 0; grade < bigTally.length; grade++) {
+                bigTally[grade] = bigTally[grade].multiply(scale);
+            }
+            bigTallies[proposal] = new ProposalTally(bigTally);
+            mixedTallies[proposal] = (0 == proposal % 2) ? bigTallies[proposal] : tally.getProposalsTallies()[proposal];
+        }
+
+        MajorityJudgmentDeliberator mj = new MajorityJudgmentDeliberator();
+        ResultInterface expected = mj.deliberate(tally);
+        mj.setListener(listener);
+        assertSameResult(expected, mj.deliberate(tally));
+        assertArrayEquals(DeliberationListenerInterface.Phase.values(), phases.toArray());
+
+        phases.clear();
+        ResultInterface bigResult = mj.deliberate(new Tally(bigTallies, BigInteger.valueOf(1000L).multiply(scale)));
+        ResultInterface mixedResult = mj.deliberate(new RationalNormalizedTally(mixedTallies));
+        for (int proposal = 0; proposal < 60; proposal++) {
+            int rank = expected.getProposalResults()[proposal].getRank();
+            assertEquals(rank, bigResult.getProposalResults()[proposal].getRank());
+            assertEquals(rank, mixedResult.getProposalResults()[proposal].getRank());
+        }
+        assertEquals(DeliberationListenerInterface.Phase.RANKING, phases.get(phases.size() - 1));
+        assertEquals(Arrays.asList(
+                DeliberationListenerInterface.Path.PRIMITIVE,
+                DeliberationListenerInterface.Path.BIG_INTEGER,
+                DeliberationListenerInterface.Path.MIXED
+        ), paths);
+
+        // Failed deliberations are not reported
+        phases.clear();
+        bigTallies[0].getTally()[0] = BigInteger.valueOf(-1);
+        ((ProposalTally) bigTallies[0]).invalidate();
+        assertThrows(IncoherentTallyException.class, () -> mj.deliberate(new Tally(bigTallies)));
+        assertTrue(phases.isEmpty());
+        assertEquals(3, paths.size());
+    }
+
+    private void assertSameResult(ResultInterface expected, ResultInterface actual) {
+        int amountOfProposals = expected.getProposalResults().length;
+        assertEquals(amountOfProposals, actual.getProposalResults().length);
+        for (int i = 0; i < amountOfProposals; i++) {
+            ProposalResultInterface e = expected.getProposalResults()[i];
+            ProposalResultInterface a = actual.getProposalResults()[i];
+            assertEquals(e.getRank(), a.getRank(), "Rank of Proposal #" + i);
+            assertEquals(e.getScore(), a.getScore(), "Score of Proposal #" + i);
+            // Relative merits first, so that they trigger the computation of lazy merits
+            assertEquals(e.getRelativeAffineMerit(), a.getRelativeAffineMerit());
+            assertEquals(e.getRelativeMerit(), a.getRelativeMerit());
+            assertEquals(e.getMerit(), a.getMerit(), "Merit of Proposal #" + i);
+            assertEquals(e.getAffineMerit(), a.getAffineMerit());
+            assertEquals(e.getAnalysis().getMedianGrade(), a.getAnalysis().getMedianGrade());
+            assertEquals(
+                    expected.getProposalResultsRanked()[i].getIndex(),
+                    actual.getProposalResultsRanked()[i].getIndex()
+            );
+        }
+    }
+
     @Test
     @DisplayName("Test numeric merit")
     void testNumericMerit() throws Throwable {
@@ -628,6 +997,25 @@ class MajorityJudgmentDeliberatorTest {
         assertTrue(caught, "An exception is raised");
     }
 
+    @Test
+    @DisplayName("Fail on incoherent tallies to normalize rationally")
+    void testFailureOnIncoherentRationalTallies() {
+        DeliberatorInterface mj = new MajorityJudgmentDeliberator();
+        ProposalTallyInterface[] negative = new ProposalTallyInterface[]{
+                new ProposalTally(new Integer[]{3, -1, 2}),
+                new ProposalTally(new Integer[]{1, 2, 3}),
+        };
+        assertThrows(IncoherentTallyException.class, () -> mj.deliberate(new NormalizedTally(negative)));
+        assertThrows(IncoherentTallyException.class, () -> mj.deliberate(new RationalNormalizedTally(negative)));
+
+        ProposalTallyInterface[] disparate = new ProposalTallyInterface[]{
+                new LongProposalTally(new long[]{1, 2}),
+                new LongProposalTally(new long[]{1, 1, 1}),
+        };
+        assertThrows(IncoherentTallyException.class, () -> mj.deliberate(new Tally(disparate, 3)));
+        assertThrows(IncoherentTallyException.class, () -> mj.deliberate(new RationalNormalizedTally(disparate)));
+    }
+
     @Test
     @DisplayName("Allow no ballots")
     void testNoBallots() {
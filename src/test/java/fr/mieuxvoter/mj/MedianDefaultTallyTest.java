@@ -42,4 +42,90 @@ class MedianDefaultTallyTest {
         assertEquals(tally.getAmountOfProposals(), tallyShallow.getAmountOfProposals());
         assertEquals(tally.getAmountOfJudges(), tallyShallow.getAmountOfJudges());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test default grades leave the base tallies untouched")
+    void testDefaultGradesDoNotWriteIntoTallies() throws Throwable {
+        CollectedTally collected = new CollectedTally(3, 4);
+        collected.collectBallot(new int[]{3, 1, 2});
+        collected.collect(0, 3);
+        collected.collect(2, 0);
+        LongProposalTally longTally = new LongProposalTally(new long[]{0, 2, 1, 0});
+        ProposalTallyInterface[] baseTallies = new ProposalTallyInterface[]{
+                collected.getProposalsTallies()[0],
+                collected.getProposalsTallies()[1],
+                collected.getProposalsTallies()[2],
+                longTally,
+        };
+
+        DeliberatorInterface mj = new MajorityJudgmentDeliberator();
+        ResultInterface staticResult = mj.deliberate(new StaticDefaultTally(baseTallies, 5L, 0));
+        ResultInterface medianResult = mj.deliberate(new MedianDefaultTally(baseTallies, 5L));
+
+        assertArrayEquals(new BigInteger[]{
+                BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO, BigInteger.valueOf(2),
+        }, collected.getProposalsTallies()[0].getTally());
+        assertArrayEquals(new long[]{0, 2, 1, 0}, longTally.getLongTally());
+        assertSame(longTally, baseTallies[3]);
+
+        // Deliberating again gives the same results, since nothing was filled in for good
+        for (int i = 0; i < baseTallies.length; i++) {
+            assertEquals(
+                    staticResult.getProposalResults()[i].getScore(),
+                    mj.deliberate(new StaticDefaultTally(baseTallies, 5L, 0)).getProposalResults()[i].getScore()
+            );
+            assertEquals(
+                    medianResult.getProposalResults()[i].getScore(),
+                    mj.deliberate(new MedianDefaultTally(baseTallies, 5L)).getProposalResults()[i].getScore()
+            );
+        }
+
+        // Views follow the live tally
+        StaticDefaultTally view = new StaticDefaultTally(baseTallies, 5L, 0);
+        collected.collect(1, 2);
+        assertArrayEquals(new BigInteger[]{
+                BigInteger.valueOf(3), BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO,
+        }, view.getProposalsTallies()[1].getTally());
+        assertEquals(BigInteger.valueOf(5), view.getProposalsTallies()[3].getAmountOfJudgments());
+
+        // Primitive views sum to the amount of judges, as the base was when they were built
+        LongProposalTallyInterface longView = longViewOf(baseTallies);
+        assertArrayEquals(new long[]{2, 2, 1, 0}, readLongs(longView));
+        longTally.getLongTally()[2] = 3L;
+        assertArrayEquals(new long[]{0, 2, 3, 0}, readLongs(longViewOf(baseTallies)));
+        longTally.getLongTally()[0] = Long.MAX_VALUE;
+        assertArrayEquals(new long[]{Long.MAX_VALUE, 2, 3, 0}, readLongs(longViewOf(baseTallies)));
+        longTally.getLongTally()[0] = 0L;
+        longTally.getLongTally()[2] = 1L;
+
+        // Moving judgments in a view leaves its base untouched
+        longView = longViewOf(baseTallies);
+        longView.moveJudgments(1, 0);
+        assertArrayEquals(new long[]{4, 0, 1, 0}, readLongs(longView));
+        assertEquals(5L, longView.getLongAmountOfJudgments());
+        assertArrayEquals(new long[]{0, 2, 1, 0}, longTally.getLongTally());
+        ProposalTallyInterface bigView = view.getProposalsTallies()[1];
+        bigView.moveJudgments(1, 0);
+        assertArrayEquals(new BigInteger[]{
+                BigInteger.valueOf(4), BigInteger.ZERO, BigInteger.ONE, BigInteger.ZERO,
+        }, bigView.getTally());
+        assertArrayEquals(new BigInteger[]{
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO,
+        }, collected.getProposalsTallies()[1].getTally());
+    }
+
+    private static LongProposalTallyInterface longViewOf(ProposalTallyInterface[] baseTallies) {
+        ProposalTallyInterface proposalTally = new StaticDefaultTally(baseTallies, 5L, 0).getProposalsTallies()[3];
+        assertTrue(proposalTally instanceof LongProposalTallyInterface);
+        assertFalse(proposalTally instanceof LongProposalTally);
+        return (LongProposalTallyInterface) proposalTally;
+    }
+
+    private static long[] readLongs(LongProposalTallyInterface proposalTally) {
+        long[] gradesTallies = new long[proposalTally.countGrades()];
+        for (int grade = 0; grade < gradesTallies.length; grade++) {
+            gradesTallies[grade] = proposalTally.getLongTally(grade);
+        }
+        return gradesTallies;
+    }
+}
@@ -0,0 +1,93 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeritProfileSpliteratorTest {
+
+    @Test
+    @DisplayName("Test profiles are enumerated in lexicographic order")
+    void testLexicographicOrder() {
+        for (int amountOfGrades = 1; amountOfGrades <= 5; amountOfGrades++) {
+            for (int amountOfJudges = 0; amountOfJudges <= 7; amountOfJudges++) {
+                List<long[]> expected = new ArrayList<>();
+                enumerate(new long[amountOfGrades], 0, amountOfJudges, expected);
+
+                List<long[]> actual = new ArrayList<>();
+                MeritProfileSpliterator spliterator = new MeritProfileSpliterator(amountOfGrades, amountOfJudges);
+                assertEquals(expected.size(), spliterator.estimateSize());
+                assertEquals(expected.size(), MeritProfileSpliterator.countProfiles(amountOfGrades, amountOfJudges));
+                spliterator.forEachRemaining(profile -> actual.add(profile.clone()));
+
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertArrayEquals(expected.get(i), actual.get(i));
+                    assertArrayEquals(expected.get(i), spliterator.getProfileAt(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test skipping ahead and splitting")
+    void testSkipAndSplit() {
+        MeritProfileSpliterator spliterator = new MeritProfileSpliterator(6, 20);
+        long count = spliterator.estimateSize();
+        assertEquals(53130L, count);
+
+        spliterator.skip(1000L);
+        assertEquals(1000L, spliterator.getIndex());
+        assertTrue(spliterator.tryAdvance(profile -> assertArrayEquals(spliterator.getProfileAt(1000L), profile)));
+        assertTrue(spliterator.tryAdvance(profile -> assertArrayEquals(spliterator.getProfileAt(1001L), profile)));
+
+        Spliterator<long[]> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        long[] index = {1002L};
+        prefix.forEachRemaining(profile -> assertArrayEquals(spliterator.getProfileAt(index[0]++), profile));
+        spliterator.forEachRemaining(profile -> assertArrayEquals(spliterator.getProfileAt(index[0]++), profile));
+        assertEquals(count, index[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> spliterator.skip(1L));
+        assertThrows(IndexOutOfBoundsException.class, () -> spliterator.getProfileAt(count));
+        assertThrows(IllegalArgumentException.class, () -> MeritProfileSpliterator.countProfiles(100, 1000000000L));
+    }
+
+    @Test
+    @DisplayName("Test ranking the whole profile space in a parallel stream")
+    void testParallelRanking() {
+        int amountOfGrades = 5;
+        int amountOfJudges = 30;
+        long count = MeritProfileSpliterator.countProfiles(amountOfGrades, amountOfJudges);
+        AbsoluteRankCounter counter = new AbsoluteRankCounter(amountOfGrades, amountOfJudges);
+
+        // Absolute ranks are a permutation of 1..count
+        BigInteger sumOfRanks = MeritProfileSpliterator.stream(amountOfGrades, amountOfJudges, true)
+                .map(profile -> counter.getAbsoluteRank(new LongProposalTally(profile.clone())))
+                .reduce(BigInteger.ZERO, BigInteger::add);
+        assertEquals(BigInteger.valueOf(count * (count + 1) / 2), sumOfRanks);
+        assertEquals(count, MeritProfileSpliterator.stream(amountOfGrades, amountOfJudges, true)
+                .map(profile -> counter.getAbsoluteRank(new LongProposalTally(profile.clone())))
+                .distinct()
+                .count());
+    }
+
+    private static void enumerate(long[] profile, int grade, long remaining, List<long[]> out) {
+        if (grade == profile.length - 1) {
+            profile[grade] = remaining;
+            out.add(profile.clone());
+            return;
+        }
+        for (long amount = 0; amount <= remaining; amount++) {
+            profile[grade] = amount;
+            enumerate(profile, grade + 1, remaining - amount, out);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeritToAbsoluteRankModelTest {
+
+    @Test
+    @DisplayName("Test the model is monotonic and bounded")
+    void testBounds() {
+        MeritToAbsoluteRankModel model = new MeritToAbsoluteRankModel();
+        for (int amountOfGrades = 3; amountOfGrades <= 7; amountOfGrades++) {
+            double previousRank = Double.POSITIVE_INFINITY;
+            for (int i = 0; i <= 100; i++) {
+                double rank = model.apply(i / 100.0, amountOfGrades, 25);
+                assertTrue(rank <= previousRank, "Rank must not grow with merit");
+                assertTrue(rank >= 0.0 && rank <= 1.0);
+                previousRank = rank;
+            }
+        }
+        assertEquals(0.75, model.apply(0.25, 2, 25));
+        assertEquals(1.0, model.apply(0.25, 8, 25));
+    }
+
+    @Test
+    @DisplayName("Test the tabulated model is close to the model")
+    void testTabulate() {
+        MeritToAbsoluteRankModel model = new MeritToAbsoluteRankModel();
+        for (int amountOfGrades = 2; amountOfGrades <= 7; amountOfGrades++) {
+            DoubleUnaryOperator table = model.tabulate(amountOfGrades, 101, 4096);
+            for (int i = 0; i <= 1000; i++) {
+                double merit = i / 1000.0 + 0.00037;
+                assertEquals(model.apply(Math.min(merit, 1.0), amountOfGrades, 101), table.applyAsDouble(merit), 1e-5);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> model.tabulate(5, 101, 0));
+    }
+}
@@ -0,0 +1,86 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollGeneratorTest {
+
+    @Test
+    @DisplayName("Test generated polls are balanced and reproducible")
+    void testBalancedAndReproducible() {
+        for (PollGenerator.Distribution distribution : PollGenerator.Distribution.values()) {
+            for (int amountOfGrades : new int[]{1, 2, 7, 100}) {
+                for (long amountOfJudges : new long[]{0L, 1L, 10L, 1000000000000L}) {
+                    long[][] tallies = new PollGenerator(distribution, 42L)
+                            .generateTallies(50, amountOfGrades, amountOfJudges);
+                    assertEquals(50, tallies.length);
+                    for (long[] tally : tallies) {
+                        assertEquals(amountOfGrades, tally.length);
+                        assertTrue(Arrays.stream(tally).allMatch(amount -> 0L <= amount));
+                        assertEquals(amountOfJudges, Arrays.stream(tally).sum(), distribution.toString());
+                    }
+                    assertArrayEquals(
+                            tallies,
+                            new PollGenerator(distribution, 42L).generateTallies(50, amountOfGrades, amountOfJudges)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test generated polls with missing judgments")
+    void testMissingJudgments() {
+        PollGenerator generator = new PollGenerator(PollGenerator.Distribution.ZIPF, 7L);
+        generator.setMaxMissingJudgments(30L);
+        long[][] tallies = generator.generateTallies(200, 5, 100L);
+        long least = Long.MAX_VALUE;
+        for (long[] tally : tallies) {
+            long amountOfJudgments = Arrays.stream(tally).sum();
+            assertTrue(70L <= amountOfJudgments && amountOfJudgments <= 100L);
+            least = Math.min(least, amountOfJudgments);
+        }
+        assertTrue(100L > least);
+        assertThrows(IllegalArgumentException.class, () -> generator.setMaxMissingJudgments(-1L));
+    }
+
+    @Test
+    @DisplayName("Test near ties stay close to each other")
+    void testNearTies() {
+        long[][] tallies = new PollGenerator(PollGenerator.Distribution.NEAR_TIE, 3L)
+                .generateTallies(100, 7, 1000000L);
+        for (long[] tally : tallies) {
+            for (int grade = 0; grade < tally.length; grade++) {
+                assertTrue(Math.abs(tally[grade] - tallies[0][grade]) < 20L, Arrays.toString(tally));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test deliberating generated polls along the long and big paths")
+    void testDeliberation() throws Throwable {
+        for (PollGenerator.Distribution distribution : PollGenerator.Distribution.values()) {
+            LongTally tally = new PollGenerator(distribution, 11L).generate(300, 7, 1000000000000L);
+            ProposalTallyInterface[] bigTallies = new ProposalTallyInterface[300];
+            for (int proposal = 0; proposal < 300; proposal++) {
+                bigTallies[proposal] = new ProposalTally(tally.getProposalsTallies()[proposal]);
+            }
+
+            ResultInterface result = new MajorityJudgmentDeliberator().deliberate(tally);
+            ResultInterface bigResult = new MajorityJudgmentDeliberator().deliberate(
+                    new Tally(bigTallies, 1000000000000L)
+            );
+            for (int proposal = 0; proposal < 300; proposal++) {
+                assertEquals(
+                        bigResult.getProposalResults()[proposal].getRank(),
+                        result.getProposalResults()[proposal].getRank(),
+                        distribution.toString()
+                );
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigInteger;
+import java.util.Random;
 import java.util.stream.Stream;
 
 // CTRL+F11 in Eclipse to run.
@@ -57,6 +58,32 @@ class ProposalTallyAnalysisTest {
                 pta.getTotalSize(),
                 "Total size"
         );
+
+        // The primitive path must agree with the BigInteger path
+        ProposalTallyAnalysis ptaLong = new ProposalTallyAnalysis(new LongProposalTally(rawTally));
+        assertSameAnalysis(pta, ptaLong);
+    }
+
+    void assertSameAnalysis(ProposalTallyAnalysis expected, ProposalTallyAnalysis actual) {
+        assertEquals(expected.getTotalSize(), actual.getTotalSize(), "Total size");
+        assertEquals(expected.getMedianGrade(), actual.getMedianGrade(), "Median Grade");
+        assertEquals(expected.getMedianGroupSize(), actual.getMedianGroupSize(), "Median Group Size");
+        assertEquals(expected.getContestationGrade(), actual.getContestationGrade(), "Contestation Grade");
+        assertEquals(
+                expected.getContestationGroupSize(), actual.getContestationGroupSize(),
+                "Contestation Group Size"
+        );
+        assertEquals(expected.getAdhesionGrade(), actual.getAdhesionGrade(), "Adhesion Grade");
+        assertEquals(expected.getAdhesionGroupSize(), actual.getAdhesionGroupSize(), "Adhesion Group Size");
+        assertEquals(expected.getSecondMedianGrade(), actual.getSecondMedianGrade(), "Second Median Grade");
+        assertEquals(
+                expected.getSecondMedianGroupSize(), actual.getSecondMedianGroupSize(),
+                "Second Median Group Size"
+        );
+        assertEquals(
+                expected.getSecondMedianGroupSign(), actual.getSecondMedianGroupSign(),
+                "Second Median Group Sign"
+        );
     }
 
     protected static Stream<Arguments> testProvider() {
@@ -241,6 +268,81 @@ class ProposalTallyAnalysisTest {
     }
 
 
+    @Test
+    @DisplayName("Test the resolution leaves the tally untouched")
+    void testResolutionDoesNotMutateTally() {
+        Integer[] rawTally = new Integer[]{4, 2, 1, 1, 2, 2, 3};
+        ProposalTally tally = new ProposalTally(rawTally);
+        LongProposalTally longTally = new LongProposalTally(rawTally);
+
+        new ProposalTallyAnalysis().computeResolution(tally);
+        new ProposalTallyAnalysis().computeResolution(longTally, false);
+
+        for (int i = 0; i < rawTally.length; i++) {
+            assertEquals(BigInteger.valueOf(rawTally[i]), tally.getTally()[i]);
+            assertEquals(rawTally[i].longValue(), longTally.getLongTally()[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Test the maintained sums agree with a linear scan")
+    void testMaintainedSums() {
+        Random random = new Random(18);
+        for (int attempt = 0; attempt < 500; attempt++) {
+            int amountOfGrades = 1 + random.nextInt(8);
+            Integer[] rawTally = new Integer[amountOfGrades];
+            for (int g = 0; g < amountOfGrades; g++) {
+                rawTally[g] = (0 == random.nextInt(3)) ? 0 : random.nextInt(5);
+            }
+            ProposalTally tally = new ProposalTally(rawTally);
+            tally.getPrefixSums(); // so that the changes below must keep the sums up to date
+
+            int grade = random.nextInt(amountOfGrades);
+            tally.addJudgments(grade, BigInteger.valueOf(3));
+            rawTally[grade] += 3;
+            if (0 == attempt % 2 && 1 < amountOfGrades) {
+                int intoGrade = (grade + 1) % amountOfGrades;
+                tally.moveJudgments(grade, intoGrade);
+                rawTally[intoGrade] += rawTally[grade];
+                rawTally[grade] = 0;
+            }
+            LongProposalTally longTally = new LongProposalTally(rawTally);
+
+            assertEquals(longTally.getAmountOfJudgments(), tally.getAmountOfJudgments());
+            for (boolean favorContestation : new boolean[]{true, false}) {
+                ProposalTallyAnalysis expected = new ProposalTallyAnalysis(longTally, favorContestation);
+                ProposalTallyAnalysis actual = new ProposalTallyAnalysis(tally, favorContestation);
+                assertEquals(expected.getTotalSize(), actual.getTotalSize());
+                assertEquals(expected.getMedianGrade(), actual.getMedianGrade());
+                assertEquals(expected.getMedianGroupSize(), actual.getMedianGroupSize());
+                assertEquals(expected.getContestationGrade(), actual.getContestationGrade());
+                assertEquals(expected.getContestationGroupSize(), actual.getContestationGroupSize());
+                assertEquals(expected.getAdhesionGrade(), actual.getAdhesionGrade());
+                assertEquals(expected.getAdhesionGroupSize(), actual.getAdhesionGroupSize());
+                assertEquals(expected.getSecondMedianGroupSign(), actual.getSecondMedianGroupSign());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test writes through the raw tally, followed by invalidate()")
+    void testWritesThroughRawTally() {
+        ProposalTally tally = new ProposalTally(new Integer[]{3, 0, 0});
+        assertEquals(0, new ProposalTallyAnalysis(tally, true).getMedianGrade());
+        assertEquals(BigInteger.valueOf(3), tally.getAmountOfJudgments());
+        BigInteger[] prefixSums = tally.getPrefixSums();
+        tally.getTally();
+        assertSame(prefixSums, tally.getPrefixSums()); // reads do not drop the sums
+
+        BigInteger[] rawTally = tally.getTally();
+        rawTally[0] = BigInteger.ZERO;
+        rawTally[2] = BigInteger.valueOf(4);
+        tally.invalidate();
+        assertEquals(2, new ProposalTallyAnalysis(tally, true).getMedianGrade());
+        assertEquals(BigInteger.valueOf(4), tally.getAmountOfJudgments());
+        assertEquals(BigInteger.valueOf(4), tally.getPrefixSums()[3]);
+    }
+
     @Test
     @DisplayName("Test failures on negative tallies")
     void testFailureWithNegativeTallies() {
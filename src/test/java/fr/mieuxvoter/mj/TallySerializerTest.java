@@ -0,0 +1,141 @@
+package fr.mieuxvoter.mj;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TallySerializerTest {
+
+    @Test
+    @DisplayName("Test writing and reading back tallies")
+    void testRoundTrip() throws Exception {
+        BigInteger huge = BigInteger.ONE.shiftLeft(100);
+        TallyInterface[] tallies = new TallyInterface[]{
+                new LongTally(new long[][]{{1L, 0L, 300L}, {0L, 301L, 0L}}, 301L),
+                new LongTally(new long[][]{{Long.MAX_VALUE, 0L}}, Long.MAX_VALUE),
+                new Tally(new ProposalTallyInterface[]{
+                        new ProposalTally(new Integer[]{4, 5, 6}),
+                        new ProposalTally(new Integer[]{15, 0, 0}),
+                }),
+                new Tally(new ProposalTallyInterface[]{
+                        new ProposalTally(new BigInteger[]{huge, BigInteger.ONE, BigInteger.ZERO}),
+                        new ProposalTally(new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, huge}),
+                }),
+                new Tally(new ProposalTallyInterface[]{}),
+        };
+
+        for (TallyInterface tally : tallies) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            TallySerializer.writeTo(tally, output);
+            TallySerializer.writeTo(tally, output); // twice, streams must stop after each tally
+            assertEquals(2 * TallySerializer.sizeOf(tally), output.size());
+
+            ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+            assertSameTally(tally, TallySerializer.readFrom(input));
+            assertSameTally(tally, TallySerializer.readFrom(input));
+            assertEquals(-1, input.read());
+
+            ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray());
+            assertSameTally(tally, TallySerializer.readFrom(buffer));
+            assertSameTally(tally, TallySerializer.readFrom(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+
+        // Tallies fitting in longs are read back as LongTallies
+        assertTrue(readBack(tallies[2]) instanceof LongTally);
+        assertFalse(readBack(tallies[3]) instanceof LongTally);
+    }
+
+    @Test
+    @DisplayName("Test the compactness of the format")
+    void testCompactness() {
+        int amountOfProposals = 1000;
+        long[][] rawTallies = new long[amountOfProposals][7];
+        for (long[] rawTally : rawTallies) {
+            rawTally[0] = 100L; // 2 bytes
+            rawTally[6] = 27L; // 1 byte
+        }
+        // Header and payload size, amount of proposals, amount of judges, then 1 + 8 bytes per proposal
+        int expectedSize = 4 + 2 + 2 + 2 + amountOfProposals * 9;
+        assertEquals(expectedSize, TallySerializer.sizeOf(new LongTally(rawTallies, 127L)));
+    }
+
+    @Test
+    @DisplayName("Test writing a tally while it is being collected")
+    void testWritingLiveTally() throws Exception {
+        ConcurrentCollectedTally tally = new ConcurrentCollectedTally(3, 5);
+        Thread collector = new Thread(() -> {
+            for (int judgment = 0; judgment < 200_000; judgment++) {
+                tally.collect(judgment % 3, judgment % 5);
+            }
+        });
+        collector.start();
+        try {
+            while (collector.isAlive()) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                TallySerializer.writeTo(tally, output);
+                TallyInterface readBack = TallySerializer.readFrom(ByteBuffer.wrap(output.toByteArray()));
+                BigInteger amountOfJudges = BigInteger.ZERO;
+                for (ProposalTallyInterface proposalTally : readBack.getProposalsTallies()) {
+                    amountOfJudges = amountOfJudges.max(proposalTally.getAmountOfJudgments());
+                }
+                assertEquals(amountOfJudges, readBack.getAmountOfJudges());
+            }
+        } finally {
+            collector.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Fail on unreadable bytes")
+    void testFailureOnUnreadableBytes() {
+        byte[] bytes = serialize(new LongTally(new long[][]{{1L, 2L}, {3L, 0L}}, 3L));
+
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(InvalidTallyFormatException.class, () -> TallySerializer.readFrom(ByteBuffer.wrap(wrongMagic)));
+
+        byte[] wrongVersion = bytes.clone();
+        wrongVersion[3] = 42;
+        assertThrows(InvalidTallyFormatException.class, () -> TallySerializer.readFrom(ByteBuffer.wrap(wrongVersion)));
+
+        ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+        assertThrows(InvalidTallyFormatException.class, () -> TallySerializer.readFrom(truncated));
+
+        // Counts are shifted left, and the only odd one is the escape (1) to a BigInteger
+        assertEquals(2 * 3, bytes[6]); // amount of judges
+        assertEquals(2 * 1, bytes[8]); // first grade of the first proposal
+        for (int index : new int[]{6, 8}) {
+            byte[] oddCount = bytes.clone();
+            oddCount[index] = 3;
+            assertThrows(InvalidTallyFormatException.class, () -> TallySerializer.readFrom(ByteBuffer.wrap(oddCount)));
+        }
+    }
+
+    private static byte[] serialize(TallyInterface tally) {
+        ByteBuffer buffer = ByteBuffer.allocate(TallySerializer.sizeOf(tally));
+        TallySerializer.writeTo(tally, buffer);
+        return buffer.array();
+    }
+
+    private static TallyInterface readBack(TallyInterface tally) {
+        return TallySerializer.readFrom(ByteBuffer.wrap(serialize(tally)));
+    }
+
+    private static void assertSameTally(TallyInterface expected, TallyInterface actual) {
+        assertEquals(expected.getAmountOfJudges(), actual.getAmountOfJudges());
+        assertEquals(expected.getAmountOfProposals(), actual.getAmountOfProposals());
+        for (int proposal = 0; proposal < expected.getAmountOfProposals(); proposal++) {
+            assertArrayEquals(
+                    expected.getProposalsTallies()[proposal].getTally(),
+                    actual.getProposalsTallies()[proposal].getTally()
+            );
+        }
+    }
+}